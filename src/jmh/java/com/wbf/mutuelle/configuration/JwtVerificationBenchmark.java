@@ -0,0 +1,82 @@
+package com.wbf.mutuelle.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Coût de la vérification JWT par requête : ancienne implémentation
+ * (parser reconstruit et signature vérifiée à chaque extraction) contre JwtUtil.verify.
+ *
+ * Lancement : mvn -Pjmh verify -DskipTests
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "mySecretKeyForJWTGenerationThatIsAtLeast256BitsLong";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 86400000L, 10000L);
+        token = jwtUtil.generateToken("membre@mutuelle.com", "MEMBER");
+    }
+
+    /** Ancien chemin du filtre : extractEmail + validateToken + extractRole, trois parsings complets. */
+    @Benchmark
+    public void legacyPerRequest(Blackhole bh) {
+        bh.consume(legacyClaims(token).getSubject());
+        bh.consume(!legacyClaims(token).getExpiration().before(new Date()));
+        bh.consume(legacyClaims(token).get("role", String.class));
+    }
+
+    /** Un seul parsing avec parser et clé préconstruits, sans cache. */
+    @Benchmark
+    public void singlePassUncached(Blackhole bh) {
+        VerifiedClaims claims = jwtUtil.parse(token);
+        bh.consume(claims.email());
+        bh.consume(claims.isExpired());
+        bh.consume(claims.role());
+    }
+
+    /** Chemin actuel : claims vérifiés servis par le cache. */
+    @Benchmark
+    public void singlePassCached(Blackhole bh) {
+        VerifiedClaims claims = jwtUtil.verify(token);
+        bh.consume(claims.email());
+        bh.consume(claims.isExpired());
+        bh.consume(claims.role());
+    }
+
+    private static Claims legacyClaims(String token) {
+        byte[] keyBytes = SECRET.getBytes(StandardCharsets.UTF_8);
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(keyBytes))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,117 @@
+package com.wbf.mutuelle.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.wbf.mutuelle.entities.Repayment;
+
+/**
+ * Export .xlsx en flux (SXSSF) : débit en lignes/seconde et pic de heap par itération.
+ * Le heap est volontairement limité pour vérifier que la mémoire reste plate à 1M+ lignes.
+ *
+ * Lancement : mvn -Pjmh verify -DskipTests -Djmh.includes=ExcelExportBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx256m"})
+public class ExcelExportBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private ExportService exportService;
+    private long startNanos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        exportService = new ExportService();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        startNanos = System.nanoTime();
+    }
+
+    @Benchmark
+    public long writeRepaymentsXlsx() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        exportService.writeExcel(repayments(rows), "Historique des Remboursements", out);
+        return out.count;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf("%n[xlsx] %d lignes : %.0f lignes/s, pic de heap %.1f Mo%n",
+                rows, rows / seconds, peakHeap / (1024.0 * 1024.0));
+    }
+
+    // Les lignes sont générées à la demande, comme le curseur JPA en production
+    private static Stream<Repayment> repayments(int count) {
+        Date dueDate = new Date();
+        return LongStream.rangeClosed(1, count).mapToObj(i -> {
+            Repayment repayment = new Repayment();
+            repayment.setId(i);
+            repayment.setAmount(BigDecimal.valueOf(25_000 + (i % 1000)));
+            repayment.setDueDate(dueDate);
+            repayment.setRepaymentDate(dueDate);
+            repayment.setInstallmentNumber((int) (i % 12) + 1);
+            repayment.setTotalInstallments(12);
+            repayment.setStatus(i % 3 == 0 ? "PAID" : "PENDING");
+            repayment.setPaymentMethod("MOBILE_MONEY");
+            repayment.setTransactionReference("TX-" + i);
+            return repayment;
+        });
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.wbf.mutuelle.configuration;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache des utilisateurs authentifiés, indexé par token JWT.
+ * Évite un findByEmail à chaque requête : une entrée vit au plus
+ * jwt.principal-cache.ttl millisecondes et jamais au-delà de l'expiration du token.
+ */
+@Component
+public class AuthenticatedPrincipalCache {
+
+    private final Cache<String, CachedPrincipal> cache;
+
+    public AuthenticatedPrincipalCache(@Value("${jwt.principal-cache.max-size:10000}") long maxSize,
+                                       @Value("${jwt.principal-cache.ttl:300000}") long ttl,
+                                       MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenBoundExpiry(ttl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.principals");
+    }
+
+    public UserDetails get(String token) {
+        CachedPrincipal cached = cache.getIfPresent(token);
+        return cached != null ? cached.userDetails() : null;
+    }
+
+    public void put(String token, UserDetails userDetails, Instant tokenExpiration) {
+        // On ne garde jamais le hash du mot de passe en mémoire
+        UserDetails principal = new User(userDetails.getUsername(), "", userDetails.getAuthorities());
+        long expiresAt = tokenExpiration != null ? tokenExpiration.toEpochMilli() : System.currentTimeMillis();
+        cache.put(token, new CachedPrincipal(principal, expiresAt));
+    }
+
+    /**
+     * Invalide toutes les entrées d'un membre (mise à jour, suppression, changement de rôle).
+     */
+    public void evictByEmail(String email) {
+        if (email == null) {
+            return;
+        }
+        cache.asMap().values().removeIf(cached -> email.equalsIgnoreCase(cached.userDetails().getUsername()));
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    private record CachedPrincipal(UserDetails userDetails, long expiresAt) {
+    }
+
+    private static final class TokenBoundExpiry implements Expiry<String, CachedPrincipal> {
+
+        private final long ttl;
+
+        private TokenBoundExpiry(long ttl) {
+            this.ttl = ttl;
+        }
+
+        @Override
+        public long expireAfterCreate(String token, CachedPrincipal cached, long currentTime) {
+            long untilTokenExpiry = cached.expiresAt() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(ttl, untilTokenExpiry)));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, CachedPrincipal cached, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, cached, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, CachedPrincipal cached, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.wbf.mutuelle.configuration;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Caches Caffeine des données de référence (périodes de cotisation, événements) et des profils membres.
+ * Taille, durée de vie et statistiques : spring.cache.caffeine.spec ; consultation via /actuator/caches.
+ * L'intercepteur de cache s'exécute autour de la transaction : une invalidation
+ * n'a lieu qu'après le commit, une lecture concurrente ne peut pas remettre en cache l'ancienne valeur.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    public static final String CONTRIBUTION_PERIODS = "contributionPeriods";
+    public static final String CONTRIBUTION_PERIOD_LISTS = "contributionPeriodLists";
+    public static final String EVENTS = "events";
+    public static final String EVENT_LISTS = "eventLists";
+    public static final String MEMBER_PROFILES = "memberProfiles";
+}
@@ -1,22 +1,30 @@
 package com.wbf.mutuelle.configuration;
 
 import java.io.IOException;
+import java.util.Collections;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.wbf.mutuelle.services.MemberDetailsService;
+import com.wbf.mutuelle.services.TokenRevocationService;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -26,34 +34,74 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private MemberDetailsService memberDetailsService;
 
+    @Autowired
+    private AuthenticatedPrincipalCache principalCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Mode sans état : les autorités viennent du claim "role", sans accès à la base
+    private boolean statelessAuth;
+
+    public void setStatelessAuth(boolean statelessAuth) {
+        this.statelessAuth = statelessAuth;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String email = null;
-        String token = null;
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            email = jwtUtil.extractEmail(token);
-        }
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String token = authHeader.substring(7);
+
+            try {
+                UserDetails userDetails = statelessAuth ? loadFromClaims(token) : loadFromDatabase(token);
+
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authToken =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails, null, userDetails.getAuthorities()
+                            );
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = memberDetailsService.loadUserByUsername(email);
-            
-            if (jwtUtil.validateToken(token)) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities()
-                        );
-
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                }
+            } catch (JwtException | UsernameNotFoundException e) {
+                log.debug("Token JWT rejeté: {}", e.getMessage());
             }
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails loadFromDatabase(String token) {
+        UserDetails userDetails = principalCache.get(token);
+
+        if (userDetails == null) {
+            // Une seule vérification de signature et d'expiration par token
+            VerifiedClaims claims = jwtUtil.verify(token);
+            userDetails = memberDetailsService.loadUserByUsername(claims.email());
+            principalCache.put(token, userDetails, claims.expiration());
+        }
+        return userDetails;
+    }
+
+    private UserDetails loadFromClaims(String token) {
+        VerifiedClaims claims = jwtUtil.verify(token);
+
+        if (claims.role() == null || tokenRevocationService.isRevoked(claims.email(), claims.issuedAt())) {
+            log.debug("Token JWT révoqué ou sans rôle pour {}", claims.email());
+            return null;
+        }
+
+        return new User(
+                claims.email(),
+                "",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + claims.role()))
+        );
+    }
+}
@@ -1,15 +1,25 @@
 package com.wbf.mutuelle.configuration;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+import javax.crypto.SecretKey;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -17,13 +27,24 @@ import io.jsonwebtoken.security.Keys;
 @Component
 public class JwtUtil {
 
-    private final String secretKey;
     private final long expiration;
+    // Clé et parser construits une seule fois : ils sont thread-safe
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Cache<String, VerifiedClaims> claimsCache;
 
     public JwtUtil(@Value("${jwt.secret}") String secretKey,
-                   @Value("${jwt.expiration}") long expiration) {
-        this.secretKey = secretKey;
+                   @Value("${jwt.expiration}") long expiration,
+                   @Value("${jwt.claims-cache.max-size:10000}") long claimsCacheMaxSize) {
         this.expiration = expiration;
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
     }
 
     public String generateToken(String email, String role) {
@@ -33,42 +54,88 @@ public class JwtUtil {
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
-        byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(Keys.hmacShaKeyFor(keyBytes), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Vérifie le token une seule fois (signature et expiration) et retourne ses claims.
+     * Le résultat est mis en cache jusqu'à l'expiration du token.
+     */
+    public VerifiedClaims verify(String token) {
+        VerifiedClaims cached = claimsCache.getIfPresent(token);
+        if (cached != null) {
+            if (cached.isExpired()) {
+                claimsCache.invalidate(token);
+                throw new ExpiredJwtException(null, null, "Token JWT expiré");
+            }
+            return cached;
+        }
+
+        VerifiedClaims verified = parse(token);
+        claimsCache.put(token, verified);
+        return verified;
+    }
+
     public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).email();
     }
 
     public String extractRole(String token) {
-        return extractAllClaims(token).get("role", String.class);
+        return verify(token).role();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         return claimsResolver.apply(extractAllClaims(token));
     }
 
+    public boolean validateToken(String token) {
+        return !verify(token).isExpired();
+    }
+
+    // Vérification sans cache, utilisée au premier passage d'un token
+    VerifiedClaims parse(String token) {
+        Claims claims = extractAllClaims(token);
+        return new VerifiedClaims(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration())
+        );
+    }
+
     private Claims extractAllClaims(String token) {
-        byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-        return Jwts.parserBuilder()
-                .setSigningKey(Keys.hmacShaKeyFor(keyBytes))
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    public boolean validateToken(String token) {
-        return !isTokenExpired(token);
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedClaims> {
+
+        @Override
+        public long expireAfterCreate(String token, VerifiedClaims claims, long currentTime) {
+            if (claims.expiration() == null) {
+                return 0;
+            }
+            long remaining = claims.expiration().toEpochMilli() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package com.wbf.mutuelle.configuration;
+
+import java.time.Instant;
+
+/**
+ * Claims d'un token JWT dont la signature a déjà été vérifiée.
+ * Objet immuable : il peut être partagé entre threads et mis en cache.
+ */
+public record VerifiedClaims(String email, String role, Instant issuedAt, Instant expiration) {
+
+    public boolean isExpired() {
+        return expiration != null && expiration.isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,49 @@
+package com.wbf.mutuelle.controllers;
+
+import com.wbf.mutuelle.dto.ComplianceSyncReport;
+import com.wbf.mutuelle.dto.MemberArrearsView;
+import com.wbf.mutuelle.dto.PeriodComplianceView;
+import com.wbf.mutuelle.services.ContributionComplianceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/mutuelle/contribution/compliance")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class ContributionComplianceController {
+
+    private final ContributionComplianceService complianceService;
+
+    // Membres n'ayant pas payé la période
+    @GetMapping("/periods/{periodId}/defaulters")
+    public ResponseEntity<PeriodComplianceView> getPeriodDefaulters(@PathVariable Long periodId) {
+        try {
+            return ResponseEntity.ok(complianceService.getPeriodCompliance(periodId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Périodes échues non payées par le membre
+    @GetMapping("/members/{memberId}/arrears")
+    public ResponseEntity<MemberArrearsView> getMemberArrears(@PathVariable Long memberId) {
+        try {
+            return ResponseEntity.ok(complianceService.getMemberArrears(memberId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Met à jour isRegular / subscriptionStatus des membres ; à blanc par défaut (rapport seul)
+    @PostMapping("/sync")
+    public ResponseEntity<ComplianceSyncReport> syncMemberStatuses(@RequestParam(defaultValue = "true") boolean dryRun) {
+        try {
+            return ResponseEntity.ok(complianceService.syncMemberStatuses(dryRun));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -1,27 +1,38 @@
 package com.wbf.mutuelle.controllers;
 
+import com.wbf.mutuelle.dto.BalanceReconciliationReport;
+import com.wbf.mutuelle.dto.ContributionStatisticsResponse;
+import com.wbf.mutuelle.dto.CursorPage;
 import com.wbf.mutuelle.entities.Contribution;
-import com.wbf.mutuelle.entities.ContributionPeriod;
 import com.wbf.mutuelle.entities.ContributionType;
+import com.wbf.mutuelle.entities.FileCategory;
 import com.wbf.mutuelle.entities.Member;
-import com.wbf.mutuelle.repositories.ContributionPeriodRepository;
 import com.wbf.mutuelle.repositories.MemberRepository;
+import com.wbf.mutuelle.services.BulkImportService;
+import com.wbf.mutuelle.services.ContributionBalanceService;
 import com.wbf.mutuelle.services.ContributionService;
+import com.wbf.mutuelle.services.ContributionStatisticsService;
+import com.wbf.mutuelle.services.FileStorageService;
+import com.wbf.mutuelle.services.FileStorageService.StoredFileHandle;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.ArrayList;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -31,9 +42,11 @@ import java.util.UUID;
 public class ContributionController {
 
     private final ContributionService contributionService;
+    private final ContributionBalanceService contributionBalanceService;
+    private final ContributionStatisticsService contributionStatisticsService;
+    private final BulkImportService bulkImportService;
+    private final FileStorageService fileStorageService;
     private final MemberRepository memberRepository;
-    private final ContributionPeriodRepository contributionPeriodRepository;
-    private final String UPLOAD_DIR = "./uploads/payment-proofs/";
 
     // =============================================
     // ENDPOINTS D'UPLOAD DE FICHIERS
@@ -59,11 +72,6 @@ public class ContributionController {
                 return ResponseEntity.badRequest().body("Le fichier est trop volumineux. Taille maximale: 5MB");
             }
 
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
             String originalFileName = file.getOriginalFilename();
             String fileExtension = "";
             if (originalFileName != null && originalFileName.contains(".")) {
@@ -71,13 +79,13 @@ public class ContributionController {
             }
 
             String fileName = UUID.randomUUID().toString() + fileExtension;
-            Path filePath = uploadPath.resolve(fileName);
-
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            fileStorageService.store(file, FileCategory.PAYMENT_PROOF, fileName);
 
             System.out.println("=== UPLOAD RÉUSSI: " + fileName + " ===");
             return ResponseEntity.ok(fileName);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             System.err.println("=== ERREUR UPLOAD ===");
             e.printStackTrace();
@@ -86,21 +94,16 @@ public class ContributionController {
         }
     }
 
+    // Fichier servi en flux (Range, ETag, cache immuable) avec le type enregistré à l'upload
     @GetMapping("/upload/payment-proof/{filename}")
-    public ResponseEntity<byte[]> getPaymentProof(@PathVariable String filename) {
+    public ResponseEntity<Resource> getPaymentProof(@PathVariable String filename,
+                                                    HttpServletRequest request, HttpServletResponse response) {
         try {
-            Path filePath = Paths.get(UPLOAD_DIR).resolve(filename);
-            if (!Files.exists(filePath)) {
+            Optional<StoredFileHandle> file = fileStorageService.find(FileCategory.PAYMENT_PROOF, filename);
+            if (file.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
-
-            byte[] fileBytes = Files.readAllBytes(filePath);
-            String contentType = Files.probeContentType(filePath);
-
-            return ResponseEntity.ok()
-                    .contentType(org.springframework.http.MediaType.parseMediaType(contentType))
-                    .body(fileBytes);
-
+            return StoredFileResponses.serve(file.get(), request, response);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -120,6 +123,23 @@ public class ContributionController {
         }
     }
 
+    // Liste paginée par curseur : passer nextCursor de la réponse précédente dans "cursor"
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Contribution>> getContributionsPage(@RequestParam(required = false) String cursor,
+                                                                         @RequestParam(required = false) Integer limit,
+                                                                         @RequestParam(required = false) ContributionType contributionType,
+                                                                         @RequestParam(required = false) Long periodId,
+                                                                         @RequestParam(required = false) Long memberId,
+                                                                         @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            return ResponseEntity.ok(contributionService.getContributionsPage(contributionType, periodId, memberId, cursor, limit, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Contribution> getContributionById(@PathVariable Long id) {
         try {
@@ -162,37 +182,12 @@ public class ContributionController {
             Member connectedMember = memberRepository.findByEmail(userDetails.getUsername())
                     .orElseThrow(() -> new RuntimeException("Membre non trouvé !"));
 
-            // Vérifier qu'il y a au moins 2 membres
-            if (request.getMemberIds() == null || request.getMemberIds().size() < 2) {
-                throw new RuntimeException("Une cotisation groupée doit concerner au moins 2 membres !");
-            }
-
-            // Récupérer la période de cotisation depuis la base de données
-            ContributionPeriod contributionPeriod = contributionPeriodRepository.findById(request.getContributionPeriodId())
-                    .orElseThrow(() -> new RuntimeException("Période de cotisation non trouvée avec ID: " + request.getContributionPeriodId()));
-
-            // Créer une cotisation INDIVIDUELLE pour chaque membre
-            List<Contribution> createdContributions = new ArrayList<>();
-            String groupReference = "GROUP_" + System.currentTimeMillis();
-
-            for (Long memberId : request.getMemberIds()) {
-                Member member = memberRepository.findById(memberId)
-                        .orElseThrow(() -> new RuntimeException("Membre non trouvé avec ID: " + memberId));
-
-                // Créer une nouvelle cotisation individuelle pour chaque membre
-                Contribution individualContribution = new Contribution();
-                individualContribution.setAmount(request.getAmount());
-                
-                // individualContribution.setPaymentDate(request.getPaymentDate());
-                individualContribution.setPaymentMode(request.getPaymentMode());
-                individualContribution.setPaymentProof(request.getPaymentProof());
-                individualContribution.setContributionPeriod(contributionPeriod);
-                individualContribution.setContributionType(ContributionType.INDIVIDUAL);
-                individualContribution.setMember(member);
-
-                Contribution created = contributionService.createContribution(individualContribution);
-                createdContributions.add(created);
-            }
+            // Une cotisation individuelle par membre, enregistrées ensemble sous la même référence de groupe
+            List<Contribution> createdContributions = contributionService.createGroupContributions(
+                    request.getContributionPeriodId(),
+                    request.getMemberIds(),
+                    request.getPaymentMode(),
+                    request.getPaymentProof());
 
             return ResponseEntity.status(HttpStatus.CREATED).body(createdContributions);
 
@@ -208,6 +203,19 @@ public class ContributionController {
     // ENDPOINTS DE LECTURE PAR TYPE
     // =============================================
 
+    @GetMapping("/group-reference/{groupReference}")
+    public ResponseEntity<List<Contribution>> getContributionsByGroupReference(@PathVariable String groupReference) {
+        try {
+            List<Contribution> contributions = contributionService.getContributionsByGroupReference(groupReference);
+            if (contributions.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(contributions);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/individual")
     public ResponseEntity<List<Contribution>> getIndividualContributions() {
         try {
@@ -312,38 +320,66 @@ public class ContributionController {
         }
     }
 
+    // Totaux par type, par période et par mois (une seule requête, mise en cache quelques secondes)
     @GetMapping("/statistics")
-    public ResponseEntity<ContributionStatistics> getContributionStatistics() {
+    public ResponseEntity<ContributionStatisticsResponse> getContributionStatistics() {
         try {
-            BigDecimal totalAmount = contributionService.getTotalContributionsAmount();
-            BigDecimal individualTotal = contributionService.getTotalAmountByType(ContributionType.INDIVIDUAL);
-            BigDecimal groupTotal = contributionService.getTotalAmountByType(ContributionType.GROUP);
+            return ResponseEntity.ok(contributionStatisticsService.getStatistics());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 
-            ContributionStatistics statistics = new ContributionStatistics(totalAmount, individualTotal, groupTotal);
-            return ResponseEntity.ok(statistics);
+    // Recalcule le solde courant depuis les cotisations et corrige l'écart éventuel
+    @PostMapping("/balance/reconcile")
+    public ResponseEntity<BalanceReconciliationReport> reconcileBalance() {
+        try {
+            return ResponseEntity.ok(contributionBalanceService.reconcile());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     // =============================================
-    // CLASSES INTERNES
+    // IMPORT
     // =============================================
 
-    public static class ContributionStatistics {
-        private final BigDecimal totalAmount;
-        private final BigDecimal individualAmount;
-        private final BigDecimal groupAmount;
-
-        public ContributionStatistics(BigDecimal totalAmount, BigDecimal individualAmount, BigDecimal groupAmount) {
-            this.totalAmount = totalAmount;
-            this.individualAmount = individualAmount;
-            this.groupAmount = groupAmount;
+    // Import en masse (CSV ou XLSX) : une cotisation individuelle par ligne, rapport d'erreurs par ligne
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importContributions(@RequestParam("file") MultipartFile file) {
+        try {
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest().body("Le fichier est vide");
+            }
+            return ResponseEntity.ok(bulkImportService.importContributions(file));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erreur lors de l'import: " + e.getMessage());
         }
+    }
+
+    // =============================================
+    // EXPORT
+    // =============================================
+
+    @GetMapping("/export/excel")
+    public ResponseEntity<StreamingResponseBody> exportToExcel(@RequestParam(required = false) ContributionType contributionType,
+                                                               @RequestParam(required = false) Long periodId) {
+        try {
+            String filename = "cotisations-" + new SimpleDateFormat("yyyy-MM-dd").format(new Date()) + ".xlsx";
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+            headers.setContentDispositionFormData("attachment", filename);
+            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+
+            StreamingResponseBody body = out -> contributionService.exportContributionsToExcel(contributionType, periodId, out);
 
-        public BigDecimal getTotalAmount() { return totalAmount; }
-        public BigDecimal getIndividualAmount() { return individualAmount; }
-        public BigDecimal getGroupAmount() { return groupAmount; }
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
     }
 
     // =============================================
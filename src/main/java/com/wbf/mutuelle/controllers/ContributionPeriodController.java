@@ -19,6 +19,11 @@ public class ContributionPeriodController {
         return service.getAll();
     }
 
+    @GetMapping("/active")
+    public List<ContributionPeriod> getActive() {
+        return service.getActive();
+    }
+
     @GetMapping("/{id}")
     public ContributionPeriod getById(@PathVariable Long id) {
         return service.getById(id);
@@ -0,0 +1,62 @@
+package com.wbf.mutuelle.controllers;
+
+import com.wbf.mutuelle.dto.ExportJobRequest;
+import com.wbf.mutuelle.dto.ExportJobResponse;
+import com.wbf.mutuelle.dto.MessageResponse;
+import com.wbf.mutuelle.services.ExportJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/mutuelle/export/jobs")
+@RequiredArgsConstructor
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+
+    @PostMapping
+    public ResponseEntity<?> submitExport(@RequestBody ExportJobRequest request) {
+        try {
+            ExportJobResponse job = exportJobService.submit(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportJobResponse> getExportJob(@PathVariable String id) {
+        return exportJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<Resource> downloadExport(@PathVariable String id) {
+        try {
+            Path file = exportJobService.getResultFile(id);
+            String filename = exportJobService.getResultFilename(id);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM));
+            headers.setContentDispositionFormData("attachment", filename);
+
+            return new ResponseEntity<>(new FileSystemResource(file), headers, HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.wbf.mutuelle.controllers;
 
+import com.wbf.mutuelle.dto.CursorPage;
 import com.wbf.mutuelle.entities.Loan;
 import com.wbf.mutuelle.services.LoanService;
 import lombok.RequiredArgsConstructor;
@@ -30,6 +31,19 @@ public class LoanController {
     public ResponseEntity<List<Loan>> getAllLoans() {
         List<Loan> loans = loanService.getAllLoans();
         return ResponseEntity.ok(loans);
+    }
+     // Liste paginée par curseur (nextCursor de la réponse précédente dans "cursor")
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Loan>> getLoansPage(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         @RequestParam(required = false) Boolean isRepaid,
+                                                         @RequestParam(required = false) Long memberId,
+                                                         @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            return ResponseEntity.ok(loanService.getLoansPage(isRepaid, memberId, cursor, limit, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
      // Récupérer un prêt par son ID
     @GetMapping("/{id}")
@@ -1,6 +1,7 @@
 package com.wbf.mutuelle.controllers;
 
 import com.wbf.mutuelle.dto.ApprovalRequest;
+import com.wbf.mutuelle.dto.CursorPage;
 import com.wbf.mutuelle.entities.LoanRequest;
 import com.wbf.mutuelle.entities.Loan;
 import com.wbf.mutuelle.entities.Repayment;
@@ -41,6 +42,20 @@ public class LoanRequestController {
         return loanRequestService.getAllLoanRequests();
     }
 
+    // Liste paginée par curseur (nextCursor de la réponse précédente dans "cursor")
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<LoanRequest>> getLoanRequestsPage(@RequestParam(required = false) String cursor,
+                                                                       @RequestParam(required = false) Integer limit,
+                                                                       @RequestParam(required = false) String status,
+                                                                       @RequestParam(required = false) Long memberId,
+                                                                       @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            return ResponseEntity.ok(loanRequestService.getLoanRequestsPage(status, memberId, cursor, limit, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<LoanRequest> getLoanRequestById(@PathVariable Long id) {
         return loanRequestService.getLoanRequestById(id)
@@ -1,11 +1,23 @@
 package com.wbf.mutuelle.controllers;
 
+import com.wbf.mutuelle.dto.CursorPage;
 import com.wbf.mutuelle.dto.ForgotPasswordRequest;
+import com.wbf.mutuelle.dto.MemberDirectoryEntry;
+import com.wbf.mutuelle.dto.MemberProfileResponse;
 import com.wbf.mutuelle.dto.MessageResponse;
 import com.wbf.mutuelle.dto.ResetPasswordRequest;
+import com.wbf.mutuelle.entities.FileCategory;
 import com.wbf.mutuelle.entities.Member;
+import com.wbf.mutuelle.entities.MemberFinancialSummary;
+import com.wbf.mutuelle.services.BulkImportService;
+import com.wbf.mutuelle.services.FileStorageService;
+import com.wbf.mutuelle.services.FileStorageService.StoredFileHandle;
+import com.wbf.mutuelle.services.MemberFinancialSummaryService;
 import com.wbf.mutuelle.services.MemberService;
 import com.wbf.mutuelle.services.PasswordResetService;
+import com.wbf.mutuelle.services.ProfileThumbnailService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -18,12 +30,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.http.MediaType;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Map;
+import java.util.Optional;
 
 @CrossOrigin(origins = "*", maxAge = 3000)
 @RestController
@@ -31,18 +41,21 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class MemberController {
     private final MemberService memberService;
-    private final String UPLOAD_DIR = "./uploads/profile-images/";
     private final PasswordResetService passwordResetService;
+    private final MemberFinancialSummaryService memberFinancialSummaryService;
+    private final BulkImportService bulkImportService;
+    private final FileStorageService fileStorageService;
+    private final ProfileThumbnailService profileThumbnailService;
 
     @GetMapping("/profile")
-    public ResponseEntity<Member> getProfile() {
+    public ResponseEntity<MemberProfileResponse> getProfile() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        Member member = memberService.getAllMembers().stream()
-                .filter(m -> m.getEmail().equals(email))
-                .findFirst()
-                .orElseThrow();
-        return ResponseEntity.ok(member);
+        if (authentication == null || !authentication.isAuthenticated() || "anonymousUser".equals(authentication.getName())) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return memberService.getProfile(authentication.getName())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping(value = "/upload-profile", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -57,9 +70,8 @@ public class MemberController {
             Member member = memberService.getMemberByEmail(email).orElseThrow(() -> new RuntimeException("Membre non trouvé"));
 
             if (file == null || file.isEmpty()) return ResponseEntity.badRequest().body("Fichier vide");
-
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) Files.createDirectories(uploadPath);
+            // La limite multipart globale est relevée pour les imports : les photos restent à 5MB
+            if (file.getSize() > 5 * 1024 * 1024) return ResponseEntity.badRequest().body("Fichier trop volumineux. Taille maximale: 5MB");
 
             String originalFileName = file.getOriginalFilename();
             String extension = "";
@@ -68,30 +80,33 @@ public class MemberController {
             }
 
             String filename = "profile_" + member.getId() + System.currentTimeMillis() + extension;
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            StoredFileHandle stored = fileStorageService.store(file, FileCategory.PROFILE_IMAGE, filename);
+            profileThumbnailService.generateAsync(stored);
 
             // update member
             memberService.updateProfileImage(member.getId(), filename);
 
             return ResponseEntity.ok().body(Map.of("filename", filename));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erreur upload: " + e.getMessage());
         }
     }
 
+    // size : plus petite miniature couvrant cette taille en pixels (64, 256), sinon l'original
     @GetMapping(value = "/profile-image/{filename}")
-    public ResponseEntity<byte[]> getProfileImage(@PathVariable String filename) {
+    public ResponseEntity<Resource> getProfileImage(@PathVariable String filename,
+                                                    @RequestParam(required = false) Integer size,
+                                                    HttpServletRequest request, HttpServletResponse response) {
         try {
-            Path filePath = Paths.get(UPLOAD_DIR).resolve(filename);
-            if (!Files.exists(filePath)) return ResponseEntity.notFound().build();
-
-            String contentType = Files.probeContentType(filePath);
-            byte[] data = Files.readAllBytes(filePath);
-            HttpHeaders headers = new HttpHeaders();
-            headers.set(HttpHeaders.CONTENT_TYPE, contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
-            return new ResponseEntity<>(data, headers, HttpStatus.OK);
+            Optional<StoredFileHandle> file = fileStorageService.find(FileCategory.PROFILE_IMAGE, filename);
+            if (file.isEmpty()) return ResponseEntity.notFound().build();
+            StoredFileHandle handle = size != null ? profileThumbnailService.select(file.get(), size) : file.get();
+            return StoredFileResponses.serve(handle, request, response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -108,17 +123,10 @@ public class MemberController {
             String email = authentication.getName();
             Member member = memberService.getMemberByEmail(email).orElseThrow(() -> new RuntimeException("Membre non trouvé"));
 
-            member.setName(memberDetails.getName());
-            member.setFirstName(memberDetails.getFirstName());
-            member.setPhone(memberDetails.getPhone());
-            member.setNpi(memberDetails.getNpi());
-            member.setPassword(memberDetails.getPassword());
-            member.setEmail(memberDetails.getEmail());
-            member.setRole(memberDetails.getRole());
-            
-            // add other fields as necessary
-
-            Member updatedMember = memberService.updateMember(member.getId(), member);
+            // Le membre chargé ci-dessus est l'instance gérée (open-in-view) : il ne doit pas être
+            // modifié ici, sinon updateMember ne voit plus l'ancien email / l'ancien rôle et ne
+            // révoque pas les tokens existants. Les nouvelles valeurs viennent du corps de la requête.
+            Member updatedMember = memberService.updateMember(member.getId(), memberDetails);
             return ResponseEntity.ok(updatedMember);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -130,16 +138,50 @@ public class MemberController {
         return memberService.getAllMembers();
     }
 
+    // Annuaire : recherche côté serveur (q vide = tous les membres), passer nextCursor dans "cursor"
+    @GetMapping("/search")
+    public ResponseEntity<CursorPage<MemberDirectoryEntry>> searchMembers(@RequestParam(required = false) String q,
+                                                                          @RequestParam(required = false) String cursor,
+                                                                          @RequestParam(required = false) Integer limit,
+                                                                          @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            return ResponseEntity.ok(memberService.searchMembers(q, cursor, limit, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public Member getMemberById(@PathVariable Long id) {
         return memberService.getMemberById(id).orElseThrow();
     }
 
+    // Situation financière complète du membre, lue dans le résumé tenu à jour
+    @GetMapping("/{id}/financial-summary")
+    public ResponseEntity<MemberFinancialSummary> getFinancialSummary(@PathVariable Long id) {
+        return memberFinancialSummaryService.getSummary(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping
     public Member createMember(@RequestBody Member member) {
         return memberService.createMember(member);
     }
 
+    // Import en masse de membres (CSV ou XLSX), rapport d'erreurs par ligne
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importMembers(@RequestParam("file") MultipartFile file) {
+        try {
+            if (file == null || file.isEmpty()) return ResponseEntity.badRequest().body("Fichier vide");
+            return ResponseEntity.ok(bulkImportService.importMembers(file));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erreur import: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/{id}")
     public Member updateMember(@PathVariable Long id, @RequestBody Member memberDetails) {
         return memberService.updateMember(id, memberDetails);
@@ -156,10 +198,11 @@ public class MemberController {
     public ResponseEntity<Member> updateSubscription(
             @PathVariable Long id,
             @RequestParam Boolean isRegular,
-            @RequestParam String subscriptionDate) {
+            @RequestParam String subscriptionDate,
+            @RequestParam(defaultValue = "true") boolean manual) {
         try {
             java.time.LocalDate date = java.time.LocalDate.parse(subscriptionDate);
-            Member updatedMember = memberService.updateSubscriptionStatus(id, isRegular, date);
+            Member updatedMember = memberService.updateSubscriptionStatus(id, isRegular, date, manual);
             return ResponseEntity.ok(updatedMember);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -1,8 +1,11 @@
 package com.wbf.mutuelle.controllers;
 
+import com.wbf.mutuelle.dto.CursorPage;
+import com.wbf.mutuelle.dto.NotificationSearchHit;
 import com.wbf.mutuelle.entities.Notification;
 import com.wbf.mutuelle.services.NotificationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -25,6 +28,20 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    // Liste paginée par curseur (nextCursor de la réponse précédente dans "cursor")
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Notification>> getNotificationsPage(@RequestParam(required = false) String cursor,
+                                                                         @RequestParam(required = false) Integer limit,
+                                                                         @RequestParam(required = false) String receiver,
+                                                                         @RequestParam(required = false) String role,
+                                                                         @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            return ResponseEntity.ok(notificationService.getNotificationsPage(receiver, role, cursor, limit, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Notification> getNotificationById(@PathVariable Long id) {
         Notification notification = notificationService.getNotificationById(id);
@@ -106,11 +123,18 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
-    // Recherche par mot-clé
+    // Recherche par mot-clé : plein texte, triée par pertinence et paginée
     @GetMapping("/search")
-    public ResponseEntity<List<Notification>> searchNotifications(@RequestParam String keyword) {
-        List<Notification> notifications = notificationService.searchNotificationsByKeyword(keyword);
-        return ResponseEntity.ok(notifications);
+    public ResponseEntity<Page<NotificationSearchHit>> searchNotifications(@RequestParam String keyword,
+                                                                           @RequestParam(required = false) String receiver,
+                                                                           @RequestParam(required = false) String role,
+                                                                           @RequestParam(defaultValue = "0") int page,
+                                                                           @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(notificationService.searchNotifications(keyword, receiver, role, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     // Comptage
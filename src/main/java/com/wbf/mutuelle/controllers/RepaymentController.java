@@ -1,5 +1,7 @@
 package com.wbf.mutuelle.controllers;
 
+import com.wbf.mutuelle.dto.OverdueMarkingReport;
+import com.wbf.mutuelle.dto.RepaymentProcessingResult;
 import com.wbf.mutuelle.entities.Repayment;
 import com.wbf.mutuelle.services.RepaymentService;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
@@ -82,64 +85,40 @@ public class RepaymentController {
         }
     }
 
+    // Exports en flux : les lignes sont écrites dans la réponse au fil de la lecture
     @GetMapping("/export/pdf")
-    public ResponseEntity<byte[]> exportToPdf(@RequestParam(required = false) List<String> statuses,
-                                              @RequestParam(required = false) Long memberId) {
-        try {
-            List<Repayment> repayments = repaymentService.getRepaymentHistory(statuses, memberId);
-            byte[] pdfBytes = repaymentService.exportRepaymentsToPdf(repayments);
-
-            String filename = "historique-remboursements-" +
-                    new SimpleDateFormat("yyyy-MM-dd").format(new Date()) + ".pdf";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", filename);
-            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public ResponseEntity<StreamingResponseBody> exportToPdf(@RequestParam(required = false) List<String> statuses,
+                                                             @RequestParam(required = false) Long memberId) {
+        return streamExport(statuses, memberId, "pdf", MediaType.APPLICATION_PDF, ".pdf");
     }
 
     @GetMapping("/export/excel")
-    public ResponseEntity<byte[]> exportToExcel(@RequestParam(required = false) List<String> statuses,
-                                                @RequestParam(required = false) Long memberId) {
-        try {
-            List<Repayment> repayments = repaymentService.getRepaymentHistory(statuses, memberId);
-            byte[] excelBytes = repaymentService.exportRepaymentsToExcel(repayments);
-
-            String filename = "historique-remboursements-" +
-                    new SimpleDateFormat("yyyy-MM-dd").format(new Date()) + ".xlsx";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-            headers.setContentDispositionFormData("attachment", filename);
-            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-
-            return new ResponseEntity<>(excelBytes, headers, HttpStatus.OK);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public ResponseEntity<StreamingResponseBody> exportToExcel(@RequestParam(required = false) List<String> statuses,
+                                                               @RequestParam(required = false) Long memberId) {
+        return streamExport(statuses, memberId, "excel",
+                MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"), ".xlsx");
     }
 
     @GetMapping("/export/csv")
-    public ResponseEntity<byte[]> exportToCsv(@RequestParam(required = false) List<String> statuses,
-                                              @RequestParam(required = false) Long memberId) {
-        try {
-            List<Repayment> repayments = repaymentService.getRepaymentHistory(statuses, memberId);
-            byte[] csvBytes = repaymentService.exportRepaymentsToCsv(repayments);
+    public ResponseEntity<StreamingResponseBody> exportToCsv(@RequestParam(required = false) List<String> statuses,
+                                                             @RequestParam(required = false) Long memberId) {
+        return streamExport(statuses, memberId, "csv", MediaType.parseMediaType("text/csv"), ".csv");
+    }
 
+    private ResponseEntity<StreamingResponseBody> streamExport(List<String> statuses, Long memberId, String format,
+                                                               MediaType contentType, String extension) {
+        try {
             String filename = "historique-remboursements-" +
-                    new SimpleDateFormat("yyyy-MM-dd").format(new Date()) + ".csv";
+                    new SimpleDateFormat("yyyy-MM-dd").format(new Date()) + extension;
 
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("text/csv"));
+            headers.setContentType(contentType);
             headers.setContentDispositionFormData("attachment", filename);
             headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
 
-            return new ResponseEntity<>(csvBytes, headers, HttpStatus.OK);
+            StreamingResponseBody body = out -> repaymentService.exportRepaymentHistory(statuses, memberId, format, out);
+
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -182,15 +161,15 @@ public class RepaymentController {
     }
 
     @PostMapping("/{id}/process")
-    public ResponseEntity<Repayment> processRepayment(@PathVariable Long id,
-                                                      @RequestParam BigDecimal amountPaid,
-                                                      @RequestParam(required = false) String paymentMethod,
-                                                      @RequestParam(required = false) String transactionReference) {
+    public ResponseEntity<RepaymentProcessingResult> processRepayment(@PathVariable Long id,
+                                                                      @RequestParam BigDecimal amountPaid,
+                                                                      @RequestParam(required = false) String paymentMethod,
+                                                                      @RequestParam(required = false) String transactionReference) {
         try {
-            Repayment processedRepayment = repaymentService.processRepayment(id, amountPaid,
+            RepaymentProcessingResult result = repaymentService.processRepayment(id, amountPaid,
                     paymentMethod != null ? paymentMethod : "CASH",
                     transactionReference != null ? transactionReference : "MANUAL_" + System.currentTimeMillis());
-            return ResponseEntity.ok(processedRepayment);
+            return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -269,10 +248,10 @@ public class RepaymentController {
     }
 
     @PostMapping("/mark-overdue")
-    public ResponseEntity<String> markOverdueRepayments() {
+    public ResponseEntity<?> markOverdueRepayments() {
         try {
-            repaymentService.markOverdueRepayments();
-            return ResponseEntity.ok("Remboursements en retard marqués avec succès");
+            OverdueMarkingReport report = repaymentService.markOverdueRepayments();
+            return ResponseEntity.ok(report);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Erreur lors du marquage des remboursements en retard: " + e.getMessage());
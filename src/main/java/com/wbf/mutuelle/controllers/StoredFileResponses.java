@@ -0,0 +1,73 @@
+package com.wbf.mutuelle.controllers;
+
+import com.wbf.mutuelle.entities.StoredFile;
+import com.wbf.mutuelle.services.FileStorageService.StoredFileHandle;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réponse de téléchargement d'un fichier téléversé : ETag fort, cache immuable d'un an,
+ * requêtes Range (réponse 206 gérée par Spring MVC pour un corps Resource) et envoi
+ * par sendfile quand Tomcat le permet.
+ */
+final class StoredFileResponses {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    // Attributs de requête lus par Tomcat (connecteur NIO) pour l'envoi sans copie
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // En dessous, une copie classique coûte moins cher (même seuil que le DefaultServlet de Tomcat)
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private StoredFileResponses() {
+    }
+
+    /**
+     * Retourne null quand une réponse 304 a déjà été écrite.
+     */
+    static ResponseEntity<Resource> serve(StoredFileHandle file, HttpServletRequest request, HttpServletResponse response) {
+        StoredFile metadata = file.metadata();
+        String etag = file.eTag();
+        if (new ServletWebRequest(request, response).checkNotModified(etag, metadata.getCreatedAt().toEpochMilli())) {
+            return null;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(file.contentType()));
+        headers.setETag(etag);
+        headers.setLastModified(metadata.getCreatedAt());
+        headers.setCacheControl(file.immutable() ? IMMUTABLE : CacheControl.noCache());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Le navigateur doit s'en tenir au type annoncé (pas de détection de HTML ou de script)
+        headers.set("X-Content-Type-Options", "nosniff");
+
+        long size = file.sizeBytes();
+        boolean sendfile = "GET".equals(request.getMethod())
+                && request.getHeader(HttpHeaders.RANGE) == null
+                && size >= SENDFILE_MIN_SIZE
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT));
+        if (sendfile) {
+            // Tomcat transmet le fichier lui-même après les en-têtes ; aucun corps n'est écrit ici
+            request.setAttribute(SENDFILE_FILENAME, file.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            headers.setContentLength(size);
+            return new ResponseEntity<>(headers, HttpStatus.OK);
+        }
+
+        return new ResponseEntity<>(new FileSystemResource(file.path()), headers, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,19 @@
+package com.wbf.mutuelle.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class BalanceReconciliationReport {
+    private BigDecimal ledgerTotal;
+    private BigDecimal expectedTotal;
+    private BigDecimal drift;
+    private int balancesCorrected;
+    private Instant reconciledAt;
+}
@@ -0,0 +1,24 @@
+package com.wbf.mutuelle.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ComplianceSyncReport {
+    private int membersChecked;
+    private int regularCount;
+    private int irregularCount;
+    // Membres sans date d'adhésion ni de souscription : statut laissé tel quel
+    private int skippedCount;
+    // Statut fixé par un administrateur : non modifié
+    private int manualCount;
+    // En mode à blanc, membersUpdated est le nombre de membres qui seraient modifiés
+    private boolean dryRun;
+    private int membersUpdated;
+    private Instant syncedAt;
+}
@@ -0,0 +1,21 @@
+package com.wbf.mutuelle.dto;
+
+import com.wbf.mutuelle.entities.ContributionType;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Ligne d'export d'une cotisation, projetée directement par la requête
+ * (aucune entité chargée dans le contexte de persistance).
+ */
+public record ContributionExportRow(Long id,
+                                    ContributionType contributionType,
+                                    Date paymentDate,
+                                    BigDecimal amount,
+                                    String paymentMode,
+                                    String memberFirstName,
+                                    String memberName,
+                                    String periodName,
+                                    Integer groupMemberCount) {
+}
@@ -0,0 +1,34 @@
+package com.wbf.mutuelle.dto;
+
+import com.wbf.mutuelle.entities.ContributionType;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ContributionStatisticsResponse {
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+    private long totalCount;
+    private BigDecimal individualAmount = BigDecimal.ZERO;
+    private BigDecimal groupAmount = BigDecimal.ZERO;
+    private List<TypeTotal> byType = List.of();
+    private List<PeriodTotal> byPeriod = List.of();
+    private List<MonthTotal> byMonth = List.of();
+    private Instant computedAt;
+
+    public record TypeTotal(ContributionType contributionType, BigDecimal amount, long count) {
+    }
+
+    public record PeriodTotal(Long periodId, String periodName, BigDecimal amount, long count) {
+    }
+
+    // month au format YYYY-MM
+    public record MonthTotal(String month, BigDecimal amount, long count) {
+    }
+}
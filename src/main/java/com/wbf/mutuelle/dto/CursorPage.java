@@ -0,0 +1,39 @@
+package com.wbf.mutuelle.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page d'une liste parcourue par curseur. nextCursor est null sur la dernière page ;
+ * total n'est renseigné que si le client l'a demandé (requête COUNT séparée).
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, boolean hasMore, Long total) {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Construit la page à partir de limit + 1 lignes lues : la ligne en trop indique
+     * seulement qu'une page suivante existe.
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int limit, Function<T, KeysetCursor> cursorOf, Long total) {
+        return ofTokens(fetched, limit, item -> cursorOf.apply(item).encode(), total);
+    }
+
+    /**
+     * Variante pour un autre type de curseur : tokenOf produit directement le jeton encodé.
+     */
+    public static <T> CursorPage<T> ofTokens(List<T> fetched, int limit, Function<T, String> tokenOf, Long total) {
+        boolean hasMore = fetched.size() > limit;
+        List<T> items = hasMore ? fetched.subList(0, limit) : fetched;
+        String nextCursor = hasMore ? tokenOf.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasMore, total);
+    }
+}
@@ -0,0 +1,33 @@
+package com.wbf.mutuelle.dto;
+
+import com.wbf.mutuelle.entities.ContributionType;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.TreeSet;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ExportJobRequest {
+    private String type;       // REPAYMENTS, CONTRIBUTIONS
+    private String format;     // csv, excel, pdf
+
+    // Filtres remboursements
+    private List<String> statuses;
+    private Long memberId;
+
+    // Filtres cotisations
+    private ContributionType contributionType;
+    private Long periodId;
+
+    /**
+     * Clé identifiant deux demandes équivalentes (mêmes filtres, même format).
+     */
+    public String deduplicationKey() {
+        String statusKey = statuses == null ? "" : String.join(",", new TreeSet<>(statuses));
+        return type + "|" + format + "|" + statusKey + "|" + memberId + "|" + contributionType + "|" + periodId;
+    }
+}
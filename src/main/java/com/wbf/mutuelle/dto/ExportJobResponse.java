@@ -0,0 +1,22 @@
+package com.wbf.mutuelle.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ExportJobResponse {
+    private String id;
+    private String type;
+    private String format;
+    private String status;     // PENDING, RUNNING, COMPLETED, FAILED
+    private Instant createdAt;
+    private Instant completedAt;
+    private Long fileSize;
+    private String error;
+    private String downloadUrl;
+}
@@ -0,0 +1,27 @@
+package com.wbf.mutuelle.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImportReport {
+    private String type;
+    private String fileName;
+    private long totalRows;
+    private long importedRows;
+    private long failedRows;
+    private List<RowError> errors = new ArrayList<>();
+    // Seules les premières erreurs sont détaillées
+    private boolean errorsTruncated;
+    private long durationMs;
+    private double rowsPerSecond;
+
+    public record RowError(long rowNumber, String message) {
+    }
+}
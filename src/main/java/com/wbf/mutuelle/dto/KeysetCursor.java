@@ -0,0 +1,35 @@
+package com.wbf.mutuelle.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position dans une liste triée par (date DESC, id DESC), transmise au client sous forme
+ * de jeton opaque (base64url de "epochMillis:id", date vide si la ligne n'a pas de date).
+ */
+public record KeysetCursor(Date date, Long id) {
+
+    public String encode() {
+        String raw = (date != null ? Long.toString(date.getTime()) : "") + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un jeton ; null ou vide signifie « première page ».
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            String date = raw.substring(0, separator);
+            long id = Long.parseLong(raw.substring(separator + 1));
+            return new KeysetCursor(date.isEmpty() ? null : new Date(Long.parseLong(date)), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+    }
+}
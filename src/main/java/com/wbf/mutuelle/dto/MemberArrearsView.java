@@ -0,0 +1,18 @@
+package com.wbf.mutuelle.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Périodes échues non payées par un membre et montant dû correspondant.
+ */
+public record MemberArrearsView(Long memberId,
+                                int duePeriodsCount,
+                                List<UnpaidPeriod> unpaidPeriods,
+                                BigDecimal totalDue,
+                                Instant computedAt) {
+
+    public record UnpaidPeriod(Long periodId, String periodName, BigDecimal amountDue) {
+    }
+}
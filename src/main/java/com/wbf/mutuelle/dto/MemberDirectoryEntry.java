@@ -0,0 +1,24 @@
+package com.wbf.mutuelle.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Ligne de l'annuaire des membres (projection) : uniquement les colonnes affichées,
+ * sans mot de passe ni relations.
+ */
+public interface MemberDirectoryEntry {
+    Long getId();
+    String getName();
+    String getFirstName();
+    String getEmail();
+    String getPhone();
+    String getNpi();
+    String getProfileImage();
+    String getRole();
+    String getSubscriptionStatus();
+    Boolean getIsRegular();
+
+    // Sert uniquement à construire le curseur de la page suivante
+    @JsonIgnore
+    String getSortKey();
+}
@@ -0,0 +1,31 @@
+package com.wbf.mutuelle.dto;
+
+import com.wbf.mutuelle.entities.Member;
+import com.wbf.mutuelle.entities.Role;
+
+import java.time.LocalDate;
+
+/**
+ * Profil du membre connecté (GET /mutuelle/member/profile), mis en cache par email.
+ * Ni mot de passe ni relations : seul ce qui est affiché sur la page de profil.
+ */
+public record MemberProfileResponse(Long id,
+                                    String name,
+                                    String firstName,
+                                    String email,
+                                    String npi,
+                                    String phone,
+                                    String profileImage,
+                                    Role role,
+                                    Boolean isRegular,
+                                    Boolean hasPreviousDebt,
+                                    LocalDate lastSubscriptionDate,
+                                    String subscriptionStatus) {
+
+    public static MemberProfileResponse from(Member member) {
+        return new MemberProfileResponse(member.getId(), member.getName(), member.getFirstName(), member.getEmail(),
+                member.getNpi(), member.getPhone(), member.getProfileImage(), member.getRole(),
+                member.getIsRegular(), member.getHasPreviousDebt(), member.getLastSubscriptionDate(),
+                member.getSubscriptionStatus());
+    }
+}
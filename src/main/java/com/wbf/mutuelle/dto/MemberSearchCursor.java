@@ -0,0 +1,34 @@
+package com.wbf.mutuelle.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position dans l'annuaire des membres trié par (clé de tri « nom prénom » en minuscules, id),
+ * transmise au client sous forme de jeton opaque (base64url de "id:cléDeTri").
+ */
+public record MemberSearchCursor(String sortKey, Long id) {
+
+    public String encode() {
+        String raw = id + ":" + sortKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un jeton ; null ou vide signifie « première page ».
+     */
+    public static MemberSearchCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // La clé de tri peut contenir ':' : l'identifiant est placé en premier
+            int separator = raw.indexOf(':');
+            long id = Long.parseLong(raw.substring(0, separator));
+            return new MemberSearchCursor(raw.substring(separator + 1), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+    }
+}
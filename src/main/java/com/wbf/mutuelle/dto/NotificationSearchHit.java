@@ -0,0 +1,18 @@
+package com.wbf.mutuelle.dto;
+
+import java.util.Date;
+
+/**
+ * Résultat de recherche dans les notifications (projection) avec son score de pertinence
+ * (ts_rank en recherche plein texte, 0 en recherche LIKE).
+ */
+public interface NotificationSearchHit {
+    Long getId();
+    String getMsg();
+    Date getSendDate();
+    Date getEventDate();
+    String getReceiver();
+    String getPhone();
+    String getRole();
+    Float getRank();
+}
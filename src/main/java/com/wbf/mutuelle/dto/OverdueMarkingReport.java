@@ -0,0 +1,15 @@
+package com.wbf.mutuelle.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class OverdueMarkingReport {
+    private long rowsProcessed;
+    private long notificationsCreated;
+    private int chunks;
+    private long elapsedMs;
+}
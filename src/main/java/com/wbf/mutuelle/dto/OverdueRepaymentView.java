@@ -0,0 +1,12 @@
+package com.wbf.mutuelle.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Échéance passée en retard avec l'email du membre à notifier (projection).
+ */
+public interface OverdueRepaymentView {
+    Long getId();
+    BigDecimal getAmount();
+    String getEmail();
+}
@@ -0,0 +1,15 @@
+package com.wbf.mutuelle.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Situation d'une période de cotisation : membres à jour et membres défaillants.
+ */
+public record PeriodComplianceView(Long periodId,
+                                   String periodName,
+                                   int membersCount,
+                                   int paidCount,
+                                   List<Long> defaulterIds,
+                                   Instant computedAt) {
+}
@@ -0,0 +1,25 @@
+package com.wbf.mutuelle.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Part d'un excédent de paiement imputée sur une échéance suivante.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepaymentAllocation {
+    private Long repaymentId;
+    private Integer installmentNumber;
+    private Date dueDate;
+    private BigDecimal amountApplied;
+    private BigDecimal remainingAmount;
+    private String status;
+}
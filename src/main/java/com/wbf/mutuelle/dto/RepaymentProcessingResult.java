@@ -0,0 +1,21 @@
+package com.wbf.mutuelle.dto;
+
+import com.wbf.mutuelle.entities.Repayment;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class RepaymentProcessingResult {
+    private Repayment repayment;
+    private BigDecimal overpayment = BigDecimal.ZERO;
+    // Excédent qui n'a pu être imputé faute d'échéance en attente
+    private BigDecimal unallocatedAmount = BigDecimal.ZERO;
+    private List<RepaymentAllocation> allocations = new ArrayList<>();
+}
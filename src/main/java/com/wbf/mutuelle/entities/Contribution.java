@@ -16,8 +16,10 @@ import java.util.List;
 @Setter
 public class Contribution {
 
+    // Séquence avec allocation par blocs de 50 : permet le batch des inserts JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contribution_seq")
+    @SequenceGenerator(name = "contribution_seq", sequenceName = "contribution_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -130,6 +132,10 @@ public class Contribution {
     )
     private List<Member> members;
 
+    // Référence commune aux cotisations enregistrées ensemble pour un groupe de membres
+    @Column(name = "group_reference", length = 64)
+    private String groupReference;
+
     // Une cotisation est toujours rattachée à une période
     @ManyToOne
     @JoinColumn(name = "contribution_period_id")
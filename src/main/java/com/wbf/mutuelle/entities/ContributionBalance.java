@@ -0,0 +1,35 @@
+package com.wbf.mutuelle.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Solde courant des cotisations, tenu à jour à chaque écriture.
+ * Clé "TOTAL" pour la caisse entière, "PERIOD_{id}" pour chaque période.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "contribution_balance")
+public class ContributionBalance {
+
+    @Id
+    @Column(name = "balance_key", length = 50)
+    private String balanceKey;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    public ContributionBalance(String balanceKey) {
+        this.balanceKey = balanceKey;
+    }
+}
@@ -0,0 +1,28 @@
+package com.wbf.mutuelle.entities;
+
+import java.util.Set;
+
+/**
+ * Type de fichier téléversé, répertoire où il est rangé et types de contenu acceptés.
+ * Le type est déterminé à partir du contenu du fichier, jamais de l'en-tête envoyé par le client.
+ */
+public enum FileCategory {
+    PAYMENT_PROOF("./uploads/payment-proofs/", Set.of("image/jpeg", "image/png", "image/webp", "application/pdf")),
+    PROFILE_IMAGE("./uploads/profile-images/", Set.of("image/jpeg", "image/png", "image/webp"));
+
+    private final String directory;
+    private final Set<String> allowedContentTypes;
+
+    FileCategory(String directory, Set<String> allowedContentTypes) {
+        this.directory = directory;
+        this.allowedContentTypes = allowedContentTypes;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public boolean allows(String contentType) {
+        return contentType != null && allowedContentTypes.contains(contentType);
+    }
+}
@@ -17,8 +17,10 @@ import java.util.List;
 @Table(name = "loan")
 public class Loan {
 
+    // Séquence avec allocation par blocs de 50 : permet le batch des inserts JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+    @SequenceGenerator(name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
     private Long id;
 
     private BigDecimal amount;
@@ -100,6 +100,14 @@ public class Member {
     @Column(name = "subscription_status")
     private String subscriptionStatus = "PENDING";
 
+    // Date d'adhésion : les périodes commencées avant ne sont pas dues
+    @Column(name = "joined_at")
+    private LocalDate joinedAt;
+
+    // Statut fixé par un administrateur : la synchronisation automatique ne le modifie pas
+    @Column(name = "subscription_status_manual")
+    private Boolean subscriptionStatusManual = false;
+
     // RELATIONS AVEC LES PRÊTS - AJOUTEZ CES DEUX LIGNES
     @JsonIgnore
     @OneToMany(mappedBy = "member", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
@@ -128,6 +136,13 @@ public class Member {
         this.loans = new ArrayList<>();
     }
 
+    @PrePersist
+    public void setDefaultJoinDate() {
+        if (joinedAt == null) {
+            joinedAt = LocalDate.now();
+        }
+    }
+
     public boolean canRequestLoan() {
         return isSubscriptionActive() &&
                 !Boolean.TRUE.equals(hasPreviousDebt) &&
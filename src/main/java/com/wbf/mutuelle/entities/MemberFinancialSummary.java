@@ -0,0 +1,64 @@
+package com.wbf.mutuelle.entities;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Vue matérialisée de la situation financière d'un membre, recalculée après chaque
+ * écriture de cotisation, de remboursement ou de prêt le concernant.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "member_financial_summary")
+public class MemberFinancialSummary {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(name = "total_contributions", precision = 19, scale = 2)
+    private BigDecimal totalContributions = BigDecimal.ZERO;
+
+    @Column(name = "contributions_count")
+    private Long contributionsCount = 0L;
+
+    @Column(name = "total_repaid", precision = 19, scale = 2)
+    private BigDecimal totalRepaid = BigDecimal.ZERO;
+
+    @Column(name = "pending_amount", precision = 19, scale = 2)
+    private BigDecimal pendingAmount = BigDecimal.ZERO;
+
+    @Column(name = "next_due_repayment_id")
+    private Long nextDueRepaymentId;
+
+    @Temporal(TemporalType.DATE)
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    @Column(name = "next_due_date")
+    private Date nextDueDate;
+
+    @Column(name = "next_due_amount", precision = 19, scale = 2)
+    private BigDecimal nextDueAmount;
+
+    @Column(name = "active_loans_count")
+    private Long activeLoansCount = 0L;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    public MemberFinancialSummary(Long memberId) {
+        this.memberId = memberId;
+    }
+
+    public boolean isHasActiveLoans() {
+        return activeLoansCount != null && activeLoansCount > 0;
+    }
+}
@@ -15,8 +15,10 @@ import java.util.Date;
 @Table(name = "repayment")
 public class Repayment {
 
+    // Séquence avec allocation par blocs de 50 : permet le batch des inserts JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "repayment_seq")
+    @SequenceGenerator(name = "repayment_seq", sequenceName = "repayment_seq", allocationSize = 50)
     private Long id;
 
     private BigDecimal amount;
@@ -0,0 +1,33 @@
+package com.wbf.mutuelle.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Verrou partagé entre instances pour les traitements planifiés (style ShedLock) :
+ * une seule instance peut détenir le verrou tant que lockedUntil n'est pas dépassé.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "scheduler_lock")
+public class SchedulerLock {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "locked_until", nullable = false)
+    private Instant lockedUntil;
+
+    @Column(name = "locked_at", nullable = false)
+    private Instant lockedAt;
+
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+}
@@ -0,0 +1,37 @@
+package com.wbf.mutuelle.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Contenu d'un fichier téléversé, identifié par son empreinte SHA-256 : plusieurs StoredFile
+ * peuvent pointer vers le même contenu. ref_count compte ces références ; un contenu à zéro
+ * depuis orphaned_at est supprimé par le nettoyage planifié.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "stored_blob")
+public class StoredBlob {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "orphaned_at")
+    private Instant orphanedAt;
+}
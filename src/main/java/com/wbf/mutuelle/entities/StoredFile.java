@@ -0,0 +1,65 @@
+package com.wbf.mutuelle.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Métadonnées d'un fichier téléversé, enregistrées à l'upload : le type de contenu
+ * n'est plus deviné à chaque lecture. Un fichier n'est jamais réécrit sous le même nom.
+ * content_hash désigne le contenu partagé (StoredBlob) ; il est vide pour les fichiers
+ * téléversés avant le stockage adressé par contenu, restés dans le répertoire de leur catégorie.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "stored_file")
+public class StoredFile {
+
+    @Id
+    @Column(name = "filename", length = 100)
+    private String filename;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "category", length = 30, nullable = false)
+    private FileCategory category;
+
+    @Column(name = "content_type", length = 100, nullable = false)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public StoredFile(String filename, FileCategory category, String contentType, long sizeBytes) {
+        this(filename, category, contentType, sizeBytes, null);
+    }
+
+    public StoredFile(String filename, FileCategory category, String contentType, long sizeBytes, String contentHash) {
+        this.filename = filename;
+        this.category = category;
+        this.contentType = contentType;
+        this.sizeBytes = sizeBytes;
+        this.contentHash = contentHash;
+        this.createdAt = Instant.now();
+    }
+
+    // ETag fort : l'empreinte du contenu, ou le nom et la taille pour un fichier ancien
+    public String getETag() {
+        return "\"" + (contentHash != null ? contentHash : filename + "-" + sizeBytes) + "\"";
+    }
+
+    // ETag d'une variante dérivée du contenu (miniature)
+    public String getETag(String variant) {
+        return "\"" + (contentHash != null ? contentHash : filename + "-" + sizeBytes) + "-" + variant + "\"";
+    }
+}
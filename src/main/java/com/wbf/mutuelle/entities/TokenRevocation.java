@@ -0,0 +1,31 @@
+package com.wbf.mutuelle.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Révocation des tokens d'un membre : tout token émis avant revokedAt est refusé.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "token_revocation")
+public class TokenRevocation {
+
+    @Id
+    @Column(length = 255)
+    private String email;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    public TokenRevocation(String email, Instant revokedAt) {
+        this.email = email;
+        this.revokedAt = revokedAt;
+    }
+}
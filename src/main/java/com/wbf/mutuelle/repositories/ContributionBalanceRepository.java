@@ -0,0 +1,36 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.ContributionBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ContributionBalanceRepository extends JpaRepository<ContributionBalance, String> {
+
+    // Ajout atomique d'un delta : la ligne est créée si besoin, sinon verrouillée et incrémentée
+    @Modifying
+    @Query(value = "INSERT INTO contribution_balance (balance_key, amount, updated_at) VALUES (:key, :delta, now()) " +
+            "ON CONFLICT (balance_key) DO UPDATE SET amount = contribution_balance.amount + EXCLUDED.amount, " +
+            "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int addDelta(@Param("key") String key, @Param("delta") BigDecimal delta);
+
+    @Query("SELECT b.amount FROM ContributionBalance b WHERE b.balanceKey = :key")
+    Optional<BigDecimal> findAmountByKey(@Param("key") String key);
+
+    // Verrouille la ligne : bloque les écritures de cotisations le temps de la réconciliation
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ContributionBalance b WHERE b.balanceKey = :key")
+    Optional<ContributionBalance> lockByKey(@Param("key") String key);
+
+    @Query("SELECT b FROM ContributionBalance b WHERE b.balanceKey LIKE 'PERIOD_%'")
+    List<ContributionBalance> findPeriodBalances();
+}
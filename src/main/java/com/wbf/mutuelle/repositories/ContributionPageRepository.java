@@ -0,0 +1,24 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.Contribution;
+import com.wbf.mutuelle.entities.ContributionType;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Pagination par curseur des cotisations (paymentDate DESC NULLS FIRST, id DESC).
+ * La requête est écrite pour chaque combinaison de filtres : aucun "(:x IS NULL OR ...)"
+ * ne vient empêcher l'utilisation des index.
+ */
+public interface ContributionPageRepository {
+
+    /**
+     * Au plus limit cotisations après le curseur (cursorDate, cursorId), filtre membre compris
+     * (cotisations individuelles et groupées). Sans curseur : première page.
+     */
+    List<Contribution> findPage(ContributionType contributionType, Long periodId, Long memberId,
+                                Date cursorDate, Long cursorId, int limit);
+
+    long countPage(ContributionType contributionType, Long periodId, Long memberId);
+}
@@ -0,0 +1,117 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.Contribution;
+import com.wbf.mutuelle.entities.ContributionType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * L'ordre (payment_date DESC NULLS FIRST, id DESC) est lu en deux sections, chacune servie par un index :
+ *  - les cotisations sans date, par id décroissant ;
+ *  - les cotisations datées, par (payment_date, id) décroissants, reprises après le curseur par
+ *    une comparaison de lignes (payment_date, id) < (:cursorDate, :cursorId).
+ * Un curseur sans date est encore dans la première section : elle est terminée puis la seconde lue
+ * depuis le début. Avec un filtre membre, chaque section est l'union des deux branches indexées de
+ * ContributionRepository (cotisations individuelles / groupées).
+ */
+class ContributionPageRepositoryImpl implements ContributionPageRepository {
+
+    private final EntityManager entityManager;
+
+    ContributionPageRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Contribution> findPage(ContributionType contributionType, Long periodId, Long memberId,
+                                       Date cursorDate, Long cursorId, int limit) {
+        if (cursorDate != null && cursorId != null) {
+            return fetch(contributionType, periodId, memberId,
+                    "(c.payment_date, c.id) < (:cursorDate, :cursorId)", "payment_date DESC, %s.id DESC",
+                    cursorDate, cursorId, limit);
+        }
+
+        List<Contribution> page = new ArrayList<>(fetch(contributionType, periodId, memberId,
+                cursorId != null ? "c.payment_date IS NULL AND c.id < :cursorId" : "c.payment_date IS NULL",
+                "id DESC", null, cursorId, limit));
+        if (page.size() < limit) {
+            page.addAll(fetch(contributionType, periodId, memberId,
+                    "c.payment_date IS NOT NULL", "payment_date DESC, %s.id DESC", null, null, limit - page.size()));
+        }
+        return page;
+    }
+
+    @Override
+    public long countPage(ContributionType contributionType, Long periodId, Long memberId) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        String filters = filters(contributionType, periodId, parameters);
+        String sql;
+        if (memberId != null) {
+            parameters.put("memberId", memberId);
+            sql = "SELECT (SELECT COUNT(*) FROM contribution c WHERE c.member_id = :memberId" + and(filters) + ") " +
+                  "+ (SELECT COUNT(*) FROM contribution c WHERE " +
+                  ContributionRepository.GROUP_MEMBER_PREDICATE + and(filters) + ")";
+        } else {
+            sql = "SELECT COUNT(*) FROM contribution c" + (filters.isEmpty() ? "" : " WHERE " + filters);
+        }
+        return ((Number) bind(entityManager.createNativeQuery(sql), parameters).getSingleResult()).longValue();
+    }
+
+    // orderBy porte un %s pour l'alias de la colonne id (c dans les branches, u sur l'union)
+    @SuppressWarnings("unchecked")
+    private List<Contribution> fetch(ContributionType contributionType, Long periodId, Long memberId,
+                                     String section, String orderBy, Date cursorDate, Long cursorId, int limit) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        String where = section + and(filters(contributionType, periodId, parameters));
+        if (cursorDate != null) {
+            parameters.put("cursorDate", new java.sql.Date(cursorDate.getTime()));
+        }
+        if (cursorId != null) {
+            parameters.put("cursorId", cursorId);
+        }
+        parameters.put("limit", limit);
+
+        String branchOrder = " ORDER BY c." + orderBy.formatted("c") + " LIMIT :limit";
+        String sql;
+        if (memberId != null) {
+            parameters.put("memberId", memberId);
+            sql = "SELECT u.* FROM (" +
+                  "(SELECT c.* FROM contribution c WHERE c.member_id = :memberId AND " + where + branchOrder + ") " +
+                  "UNION ALL " +
+                  "(SELECT c.* FROM contribution c WHERE " + ContributionRepository.GROUP_MEMBER_PREDICATE +
+                  " AND " + where + branchOrder + ")" +
+                  ") u ORDER BY u." + orderBy.formatted("u") + " LIMIT :limit";
+        } else {
+            sql = "SELECT c.* FROM contribution c WHERE " + where + branchOrder;
+        }
+        return bind(entityManager.createNativeQuery(sql, Contribution.class), parameters).getResultList();
+    }
+
+    private static String filters(ContributionType contributionType, Long periodId, Map<String, Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        if (contributionType != null) {
+            conditions.add("c.contribution_type = :contributionType");
+            parameters.put("contributionType", contributionType.name());
+        }
+        if (periodId != null) {
+            conditions.add("c.contribution_period_id = :periodId");
+            parameters.put("periodId", periodId);
+        }
+        return String.join(" AND ", conditions);
+    }
+
+    private static String and(String filters) {
+        return filters.isEmpty() ? "" : " AND " + filters;
+    }
+
+    private static Query bind(Query query, Map<String, Object> parameters) {
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+}
@@ -1,17 +1,33 @@
 package com.wbf.mutuelle.repositories;
 
+import com.wbf.mutuelle.dto.ContributionExportRow;
 import com.wbf.mutuelle.entities.Contribution;
 import com.wbf.mutuelle.entities.ContributionType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ContributionRepository extends JpaRepository<Contribution, Long> {
+public interface ContributionRepository extends JpaRepository<Contribution, Long>, ContributionPageRepository {
+
+    /*
+     * Cotisations d'un membre = union de deux recherches indexées plutôt qu'un
+     * "member_id = ? OR ? IN (sous-requête)" qui force un parcours séquentiel :
+     *  - idx_contribution_member_payment_date pour les cotisations individuelles,
+     *  - idx_contribution_members_member pour la table de jointure des cotisations groupées.
+     * La seconde branche exclut les lignes déjà renvoyées par la première, d'où UNION ALL sans doublon.
+     */
+    String GROUP_MEMBER_PREDICATE =
+            "c.id IN (SELECT cm.contribution_id FROM contribution_members cm WHERE cm.member_id = :memberId) " +
+            "AND (c.member_id IS NULL OR c.member_id <> :memberId)";
 
     // Méthode de base pour trouver par type
     List<Contribution> findByContributionType(ContributionType contributionType);
@@ -23,6 +39,9 @@ public interface ContributionRepository extends JpaRepository<Contribution, Long
     @Query("SELECT DISTINCT c FROM Contribution c WHERE c.contributionType = :contributionType AND EXISTS (SELECT m FROM c.members m WHERE m.id = :memberId)")
     List<Contribution> findGroupContributionsByMemberId(@Param("contributionType") ContributionType contributionType, @Param("memberId") Long memberId);
 
+    // Cotisations enregistrées ensemble pour un groupe
+    List<Contribution> findByGroupReferenceOrderByIdAsc(String groupReference);
+
     // Toutes les contributions d'un membre (individuelles)
     List<Contribution> findByMemberId(Long memberId);
 
@@ -31,9 +50,9 @@ public interface ContributionRepository extends JpaRepository<Contribution, Long
     // =============================================
 
     // Récupérer toutes les cotisations d'un membre (individuelles ET groupées)
-    @Query("SELECT c FROM Contribution c WHERE " +
-           "c.member.id = :memberId OR " +
-           ":memberId IN (SELECT m.id FROM c.members m)")
+    @Query(value = "SELECT c.* FROM contribution c WHERE c.member_id = :memberId " +
+           "UNION ALL " +
+           "SELECT c.* FROM contribution c WHERE " + GROUP_MEMBER_PREDICATE, nativeQuery = true)
     List<Contribution> findByMemberIdOrMembersId(@Param("memberId") Long memberId);
 
     // Cotisations individuelles d'un membre (version améliorée)
@@ -53,6 +72,25 @@ public interface ContributionRepository extends JpaRepository<Contribution, Long
     @Query("SELECT COALESCE(SUM(c.amount), 0) FROM Contribution c")
     BigDecimal calculateTotalBalance();
 
+    // Somme par période : base de la réconciliation du solde courant
+    @Query("SELECT c.contributionPeriod.id, COALESCE(SUM(c.amount), 0) FROM Contribution c GROUP BY c.contributionPeriod.id")
+    List<Object[]> sumAmountByPeriod();
+
+    /**
+     * Totaux par type, par période et par mois en un seul passage (GROUPING SETS).
+     * grouping_id : 7 = total général, 3 = par type, 5 = par période, 6 = par mois.
+     * Colonnes : grouping_id, contribution_type, period_id, period_name, month (YYYY-MM), amount, count.
+     */
+    @Query(value = "SELECT GROUPING(s.contribution_type, s.contribution_period_id, s.month) AS grouping_id, " +
+            "s.contribution_type, s.contribution_period_id, p.name, s.month, " +
+            "COALESCE(SUM(s.amount), 0), COUNT(*) " +
+            "FROM (SELECT c.contribution_type, c.contribution_period_id, to_char(c.payment_date, 'YYYY-MM') AS month, c.amount " +
+            "      FROM contribution c) s " +
+            "LEFT JOIN contribution_period p ON p.id = s.contribution_period_id " +
+            "GROUP BY GROUPING SETS ((), (s.contribution_type), (s.contribution_period_id, p.name), (s.month))",
+            nativeQuery = true)
+    List<Object[]> computeStatisticsByGroupingSets();
+
     @Query("SELECT COALESCE(SUM(c.amount), 0) FROM Contribution c WHERE c.member.id = :memberId")
     BigDecimal calculateBalanceByMemberId(@Param("memberId") Long memberId);
 
@@ -65,8 +103,9 @@ public interface ContributionRepository extends JpaRepository<Contribution, Long
     BigDecimal getTotalAmount();
 
     // Montant total des contributions d'un membre (individuelles ET groupées)
-    @Query("SELECT COALESCE(SUM(c.amount), 0) FROM Contribution c WHERE " +
-           "c.member.id = :memberId OR :memberId IN (SELECT m.id FROM c.members m)")
+    @Query(value = "SELECT COALESCE((SELECT SUM(c.amount) FROM contribution c WHERE c.member_id = :memberId), 0) " +
+           "+ COALESCE((SELECT SUM(c.amount) FROM contribution c WHERE " + GROUP_MEMBER_PREDICATE + "), 0)",
+           nativeQuery = true)
     BigDecimal getTotalAmountByMember(@Param("memberId") Long memberId);
 
     // Montant total par type de contribution
@@ -82,16 +121,55 @@ public interface ContributionRepository extends JpaRepository<Contribution, Long
     List<Contribution> findByContributionPeriodId(@Param("periodId") Long periodId);
 
     // Trouver les contributions d'un membre par période
-    @Query("SELECT c FROM Contribution c WHERE (c.member.id = :memberId OR :memberId IN (SELECT m.id FROM c.members m)) AND c.contributionPeriod.id = :periodId")
+    @Query(value = "SELECT c.* FROM contribution c WHERE c.member_id = :memberId AND c.contribution_period_id = :periodId " +
+           "UNION ALL " +
+           "SELECT c.* FROM contribution c WHERE c.contribution_period_id = :periodId AND " + GROUP_MEMBER_PREDICATE,
+           nativeQuery = true)
     List<Contribution> findByMemberIdAndContributionPeriodId(@Param("memberId") Long memberId, 
                                                             @Param("periodId") Long periodId);
 
-    // Dernières contributions d'un membre (avec limite)
-    @Query("SELECT c FROM Contribution c WHERE c.member.id = :memberId OR :memberId IN (SELECT m.id FROM c.members m) ORDER BY c.paymentDate DESC")
-    List<Contribution> findRecentContributionsByMemberId(@Param("memberId") Long memberId, 
-                                                        org.springframework.data.domain.Pageable pageable);
+    // Dernières contributions d'un membre (avec limite) : chaque branche ne lit que ses :limit plus récentes
+    @Query(value = "SELECT u.* FROM (" +
+           "(SELECT c.* FROM contribution c WHERE c.member_id = :memberId ORDER BY c.payment_date DESC LIMIT :limit) " +
+           "UNION ALL " +
+           "(SELECT c.* FROM contribution c WHERE " + GROUP_MEMBER_PREDICATE + " ORDER BY c.payment_date DESC LIMIT :limit)" +
+           ") u ORDER BY u.payment_date DESC LIMIT :limit", nativeQuery = true)
+    List<Contribution> findRecentContributionsByMemberId(@Param("memberId") Long memberId, @Param("limit") int limit);
 
     // Compter le nombre de contributions d'un membre
-    @Query("SELECT COUNT(c) FROM Contribution c WHERE c.member.id = :memberId OR :memberId IN (SELECT m.id FROM c.members m)")
+    @Query(value = "SELECT (SELECT COUNT(*) FROM contribution c WHERE c.member_id = :memberId) " +
+           "+ (SELECT COUNT(*) FROM contribution c WHERE " + GROUP_MEMBER_PREDICATE + ")", nativeQuery = true)
     Long countContributionsByMemberId(@Param("memberId") Long memberId);
-}
\ No newline at end of file
+
+    // =============================================
+    // EXPORT EN FLUX
+    // =============================================
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.wbf.mutuelle.dto.ContributionExportRow(" +
+           "c.id, c.contributionType, c.paymentDate, c.amount, c.paymentMode, " +
+           "m.firstName, m.name, p.name, SIZE(c.members)) " +
+           "FROM Contribution c LEFT JOIN c.member m LEFT JOIN c.contributionPeriod p " +
+           "WHERE (:contributionType IS NULL OR c.contributionType = :contributionType) " +
+           "AND (:periodId IS NULL OR p.id = :periodId) " +
+           "ORDER BY c.id")
+    Stream<ContributionExportRow> streamExportRows(@Param("contributionType") ContributionType contributionType,
+                                                   @Param("periodId") Long periodId);
+
+    // Couples (membre, période) payés : cotisations individuelles et membres des cotisations groupées
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT c.member_id, c.contribution_period_id FROM contribution c " +
+            "WHERE c.member_id IS NOT NULL AND c.contribution_period_id IS NOT NULL " +
+            "UNION ALL " +
+            "SELECT cm.member_id, c.contribution_period_id FROM contribution_members cm " +
+            "JOIN contribution c ON c.id = cm.contribution_id " +
+            "WHERE c.contribution_period_id IS NOT NULL",
+            nativeQuery = true)
+    Stream<Object[]> streamPaidMemberPeriods();
+}
@@ -2,8 +2,20 @@ package com.wbf.mutuelle.repositories;
 
 import com.wbf.mutuelle.entities.Event;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface EventRepository extends JpaRepository<Event,Long> {
+
+    // Membres chargés avec l'événement : l'objet reste lisible une fois mis en cache, hors session
+    @Query("SELECT DISTINCT e FROM Event e LEFT JOIN FETCH e.members")
+    List<Event> findAllWithMembers();
+
+    @Query("SELECT e FROM Event e LEFT JOIN FETCH e.members WHERE e.id = :id")
+    Optional<Event> findWithMembersById(@Param("id") Long id);
 }
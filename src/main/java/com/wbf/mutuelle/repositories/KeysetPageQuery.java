@@ -0,0 +1,105 @@
+package com.wbf.mutuelle.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Pagination par curseur (date DESC NULLS FIRST, id DESC) d'une entité, lue en deux sections comme
+ * ContributionPageRepositoryImpl, chacune servie par l'index (date, id) :
+ *  - les lignes sans date, par id décroissant ;
+ *  - les lignes datées, reprises après le curseur par la comparaison de lignes (date, id) < (:cursorDate, :cursorId).
+ * Les filtres ne portent que sur les valeurs renseignées : la requête est écrite pour chaque combinaison,
+ * sans "(:x IS NULL OR ...)".
+ */
+final class KeysetPageQuery<T> {
+
+    private final EntityManager entityManager;
+    private final Class<T> entityClass;
+    private final String entity;
+    private final String fetch;
+    private final String date;
+    private final String id;
+
+    /**
+     * @param entity entité et alias ("Loan l")
+     * @param fetch  jointures chargées avec la page ("" si aucune), absentes du comptage
+     * @param date   attribut date du tri ("l.beginDate")
+     * @param id     identifiant ("l.id")
+     */
+    KeysetPageQuery(EntityManager entityManager, Class<T> entityClass, String entity, String fetch,
+                    String date, String id) {
+        this.entityManager = entityManager;
+        this.entityClass = entityClass;
+        this.entity = entity;
+        this.fetch = fetch;
+        this.date = date;
+        this.id = id;
+    }
+
+    /**
+     * Au plus limit lignes après le curseur (cursorDate, cursorId) ; sans curseur : première page.
+     * filters associe un attribut ("l.isRepaid") à sa valeur, les valeurs null sont ignorées.
+     */
+    List<T> find(Map<String, Object> filters, Date cursorDate, Long cursorId, int limit) {
+        if (cursorDate != null && cursorId != null) {
+            return fetch(filters, "(" + date + ", " + id + ") < (:cursorDate, :cursorId)",
+                    date + " DESC, " + id + " DESC", cursorDate, cursorId, limit);
+        }
+
+        // Un curseur sans date est encore dans la première section : elle est terminée puis la seconde lue depuis le début
+        List<T> page = new ArrayList<>(fetch(filters,
+                cursorId != null ? date + " IS NULL AND " + id + " < :cursorId" : date + " IS NULL",
+                id + " DESC", null, cursorId, limit));
+        if (page.size() < limit) {
+            page.addAll(fetch(filters, date + " IS NOT NULL", date + " DESC, " + id + " DESC",
+                    null, null, limit - page.size()));
+        }
+        return page;
+    }
+
+    long count(Map<String, Object> filters) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        String where = where(filters, parameters);
+        TypedQuery<Long> query = entityManager.createQuery(
+                "SELECT COUNT(" + id + ") FROM " + entity + (where.isEmpty() ? "" : " WHERE " + where), Long.class);
+        parameters.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    private List<T> fetch(Map<String, Object> filters, String section, String orderBy,
+                          Date cursorDate, Long cursorId, int limit) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        String where = where(filters, parameters);
+        if (cursorDate != null) {
+            parameters.put("cursorDate", cursorDate);
+        }
+        if (cursorId != null) {
+            parameters.put("cursorId", cursorId);
+        }
+
+        TypedQuery<T> query = entityManager.createQuery("SELECT " + entity.substring(entity.indexOf(' ') + 1) +
+                " FROM " + entity + fetch + " WHERE " + section + (where.isEmpty() ? "" : " AND " + where) +
+                " ORDER BY " + orderBy, entityClass);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    // Paramètres nommés f0, f1... dans l'ordre des filtres
+    private static String where(Map<String, Object> filters, Map<String, Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        filters.forEach((attribute, value) -> {
+            if (value != null) {
+                String name = "f" + parameters.size();
+                conditions.add(attribute + " = :" + name);
+                parameters.put(name, value);
+            }
+        });
+        return String.join(" AND ", conditions);
+    }
+}
@@ -0,0 +1,20 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.Loan;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Pagination par curseur des prêts (beginDate DESC NULLS FIRST, id DESC).
+ * La requête est écrite pour chaque combinaison de filtres, voir KeysetPageQuery.
+ */
+public interface LoanPageRepository {
+
+    /**
+     * Au plus limit prêts après le curseur (cursorDate, cursorId). Sans curseur : première page.
+     */
+    List<Loan> findPage(Boolean isRepaid, Long memberId, Date cursorDate, Long cursorId, int limit);
+
+    long countPage(Boolean isRepaid, Long memberId);
+}
@@ -0,0 +1,35 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.Loan;
+import jakarta.persistence.EntityManager;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class LoanPageRepositoryImpl implements LoanPageRepository {
+
+    private final KeysetPageQuery<Loan> pageQuery;
+
+    LoanPageRepositoryImpl(EntityManager entityManager) {
+        this.pageQuery = new KeysetPageQuery<>(entityManager, Loan.class, "Loan l", "", "l.beginDate", "l.id");
+    }
+
+    @Override
+    public List<Loan> findPage(Boolean isRepaid, Long memberId, Date cursorDate, Long cursorId, int limit) {
+        return pageQuery.find(filters(isRepaid, memberId), cursorDate, cursorId, limit);
+    }
+
+    @Override
+    public long countPage(Boolean isRepaid, Long memberId) {
+        return pageQuery.count(filters(isRepaid, memberId));
+    }
+
+    private static Map<String, Object> filters(Boolean isRepaid, Long memberId) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("l.isRepaid", isRepaid);
+        filters.put("l.member.id", memberId);
+        return filters;
+    }
+}
@@ -4,6 +4,7 @@ import com.wbf.mutuelle.entities.Loan;
 import com.wbf.mutuelle.entities.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
@@ -11,7 +12,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, LoanPageRepository {
 
     // Trouver tous les prêts d'un membre
     List<Loan> findByMember(Member member);
@@ -25,6 +26,8 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     // Compter les prêts non remboursés d'un membre
     Long countByMemberAndIsRepaid(Member member, Boolean isRepaid);
 
+    Long countByMemberIdAndIsRepaid(Long memberId, Boolean isRepaid);
+
     // Trouver les prêts avec montant supérieur à une valeur
     List<Loan> findByAmountGreaterThan(BigDecimal amount);
 
@@ -0,0 +1,20 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.LoanRequest;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Pagination par curseur des demandes de prêt (requestDate DESC NULLS FIRST, id DESC).
+ * La requête est écrite pour chaque combinaison de filtres, voir KeysetPageQuery.
+ */
+public interface LoanRequestPageRepository {
+
+    /**
+     * Au plus limit demandes de prêt après le curseur (cursorDate, cursorId). Sans curseur : première page.
+     */
+    List<LoanRequest> findPage(String status, Long memberId, Date cursorDate, Long cursorId, int limit);
+
+    long countPage(String status, Long memberId);
+}
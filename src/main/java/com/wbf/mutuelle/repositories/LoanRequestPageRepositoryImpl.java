@@ -0,0 +1,36 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.LoanRequest;
+import jakarta.persistence.EntityManager;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class LoanRequestPageRepositoryImpl implements LoanRequestPageRepository {
+
+    private final KeysetPageQuery<LoanRequest> pageQuery;
+
+    LoanRequestPageRepositoryImpl(EntityManager entityManager) {
+        this.pageQuery = new KeysetPageQuery<>(entityManager, LoanRequest.class, "LoanRequest lr",
+                " LEFT JOIN FETCH lr.member", "lr.requestDate", "lr.id");
+    }
+
+    @Override
+    public List<LoanRequest> findPage(String status, Long memberId, Date cursorDate, Long cursorId, int limit) {
+        return pageQuery.find(filters(status, memberId), cursorDate, cursorId, limit);
+    }
+
+    @Override
+    public long countPage(String status, Long memberId) {
+        return pageQuery.count(filters(status, memberId));
+    }
+
+    private static Map<String, Object> filters(String status, Long memberId) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("lr.status", status);
+        filters.put("lr.member.id", memberId);
+        return filters;
+    }
+}
@@ -10,7 +10,7 @@ import com.wbf.mutuelle.entities.LoanRequest;
 import com.wbf.mutuelle.entities.Member;
 
 @Repository
-public interface LoanRequestRepository extends JpaRepository<LoanRequest,Long> {
+public interface LoanRequestRepository extends JpaRepository<LoanRequest,Long>, LoanRequestPageRepository {
 
     @Query("SELECT lr FROM LoanRequest lr LEFT JOIN FETCH lr.member ORDER BY lr.requestDate DESC")
     List<LoanRequest> findAllWithMember();
@@ -0,0 +1,9 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.MemberFinancialSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MemberFinancialSummaryRepository extends JpaRepository<MemberFinancialSummary, Long> {
+}
@@ -1,14 +1,119 @@
 package com.wbf.mutuelle.repositories;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.wbf.mutuelle.dto.MemberDirectoryEntry;
 import com.wbf.mutuelle.entities.Member;
 
 @Repository
 public interface MemberRepository extends JpaRepository<Member,Long> {
-        Optional<Member> findByEmail(String email);
-        boolean existsByEmail(String email);
+        // Insensible à la casse : s'appuie sur l'index unique sur lower(email)
+        @Query("SELECT m FROM Member m WHERE lower(m.email) = lower(:email)")
+        Optional<Member> findByEmail(@Param("email") String email);
+
+        @Query("SELECT COUNT(m) > 0 FROM Member m WHERE lower(m.email) = lower(:email)")
+        boolean existsByEmail(@Param("email") String email);
+
+        // =============================================
+        // ANNUAIRE : recherche par préfixe et approximative (pg_trgm)
+        // =============================================
+
+        // Même expression que l'index idx_member_directory_sort
+        String DIRECTORY_SORT_KEY = "lower(coalesce(m.name, '') || ' ' || coalesce(m.first_name, ''))";
+
+        // :q est en minuscules, :prefix = :q échappé suivi de '%' ; LIKE et % s'appuient sur les index GIN trigrammes
+        String DIRECTORY_FILTER = "(lower(m.name) LIKE :prefix OR lower(m.first_name) LIKE :prefix " +
+                "OR lower(m.email) LIKE :prefix OR m.phone LIKE :prefix OR m.npi LIKE :prefix " +
+                "OR lower(m.name) % CAST(:q AS text) OR lower(m.first_name) % CAST(:q AS text) " +
+                "OR lower(m.email) % CAST(:q AS text))";
+
+        String DIRECTORY_AFTER_CURSOR = "(" + DIRECTORY_SORT_KEY + ", m.id) > (CAST(:cursorKey AS text), :cursorId)";
+
+        String DIRECTORY_SELECT = "SELECT m.id AS id, m.name AS name, m.first_name AS \"firstName\", m.email AS email, " +
+                "m.phone AS phone, m.npi AS npi, m.profile_image AS \"profileImage\", m.role AS role, " +
+                "m.subscription_status AS \"subscriptionStatus\", m.is_regular AS \"isRegular\", " +
+                DIRECTORY_SORT_KEY + " AS \"sortKey\" FROM member m ";
+
+        String DIRECTORY_ORDER = " ORDER BY " + DIRECTORY_SORT_KEY + ", m.id LIMIT :limit";
+
+        /**
+         * Page de l'annuaire après le curseur (cursorKey, cursorId) ; q null = tous les membres.
+         * Une requête par cas (recherche ou non, curseur ou non) : aucun "IS NULL OR" n'empêche
+         * l'utilisation des index trigrammes et de idx_member_directory_sort.
+         */
+        default List<MemberDirectoryEntry> searchDirectory(String q, String prefix, String cursorKey, Long cursorId, int limit) {
+                boolean afterCursor = cursorKey != null && cursorId != null;
+                if (q == null) {
+                        return afterCursor ? findDirectoryAfter(cursorKey, cursorId, limit) : findDirectory(limit);
+                }
+                return afterCursor ? searchDirectoryAfter(q, prefix, cursorKey, cursorId, limit)
+                        : searchDirectoryFirst(q, prefix, limit);
+        }
+
+        default long countDirectory(String q, String prefix) {
+                return q == null ? count() : countDirectoryMatches(q, prefix);
+        }
+
+        @Query(value = DIRECTORY_SELECT + DIRECTORY_ORDER, nativeQuery = true)
+        List<MemberDirectoryEntry> findDirectory(@Param("limit") int limit);
+
+        @Query(value = DIRECTORY_SELECT + "WHERE " + DIRECTORY_AFTER_CURSOR + DIRECTORY_ORDER, nativeQuery = true)
+        List<MemberDirectoryEntry> findDirectoryAfter(@Param("cursorKey") String cursorKey,
+                                                      @Param("cursorId") Long cursorId,
+                                                      @Param("limit") int limit);
+
+        @Query(value = DIRECTORY_SELECT + "WHERE " + DIRECTORY_FILTER + DIRECTORY_ORDER, nativeQuery = true)
+        List<MemberDirectoryEntry> searchDirectoryFirst(@Param("q") String q,
+                                                        @Param("prefix") String prefix,
+                                                        @Param("limit") int limit);
+
+        @Query(value = DIRECTORY_SELECT + "WHERE " + DIRECTORY_FILTER + " AND " + DIRECTORY_AFTER_CURSOR + DIRECTORY_ORDER,
+                nativeQuery = true)
+        List<MemberDirectoryEntry> searchDirectoryAfter(@Param("q") String q,
+                                                        @Param("prefix") String prefix,
+                                                        @Param("cursorKey") String cursorKey,
+                                                        @Param("cursorId") Long cursorId,
+                                                        @Param("limit") int limit);
+
+        @Query(value = "SELECT COUNT(*) FROM member m WHERE " + DIRECTORY_FILTER, nativeQuery = true)
+        long countDirectoryMatches(@Param("q") String q, @Param("prefix") String prefix);
+
+        @Query("SELECT m.id FROM Member m ORDER BY m.id")
+        List<Long> findAllIds();
+
+        @Query("SELECT m.id, m.email FROM Member m")
+        List<Object[]> findAllIdsAndEmails();
+
+        // Date à partir de laquelle les périodes sont dues : (id, joinedAt, lastSubscriptionDate) triés par id
+        @Query("SELECT m.id, m.joinedAt, m.lastSubscriptionDate FROM Member m ORDER BY m.id")
+        List<Object[]> findComplianceBaselines();
+
+        @Query("SELECT m.id FROM Member m WHERE m.subscriptionStatusManual = true")
+        List<Long> findManualStatusIds();
+
+        // Membres que updateComplianceStatus modifierait (synchronisation à blanc)
+        @Query("SELECT COUNT(m) FROM Member m WHERE m.id IN :ids " +
+                "AND (m.subscriptionStatusManual IS NULL OR m.subscriptionStatusManual = false) " +
+                "AND (m.isRegular IS NULL OR m.isRegular <> :regular OR m.subscriptionStatus IS NULL OR m.subscriptionStatus <> :status)")
+        long countComplianceChanges(@Param("ids") Collection<Long> ids,
+                                    @Param("regular") Boolean regular,
+                                    @Param("status") String status);
+
+        // Mise à jour en masse du statut de cotisation ; les membres déjà dans le bon état
+        // et ceux dont le statut a été fixé manuellement ne sont pas réécrits
+        @Modifying
+        @Query("UPDATE Member m SET m.isRegular = :regular, m.subscriptionStatus = :status WHERE m.id IN :ids " +
+                "AND (m.subscriptionStatusManual IS NULL OR m.subscriptionStatusManual = false) " +
+                "AND (m.isRegular IS NULL OR m.isRegular <> :regular OR m.subscriptionStatus IS NULL OR m.subscriptionStatus <> :status)")
+        int updateComplianceStatus(@Param("ids") Collection<Long> ids,
+                                   @Param("regular") Boolean regular,
+                                   @Param("status") String status);
 }
\ No newline at end of file
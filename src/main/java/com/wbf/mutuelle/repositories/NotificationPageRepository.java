@@ -0,0 +1,20 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.Notification;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Pagination par curseur des notifications (send_date DESC NULLS FIRST, id DESC).
+ * La requête est écrite pour chaque combinaison de filtres, voir KeysetPageQuery.
+ */
+public interface NotificationPageRepository {
+
+    /**
+     * Au plus limit notifications après le curseur (cursorDate, cursorId). Sans curseur : première page.
+     */
+    List<Notification> findPage(String receiver, String role, Date cursorDate, Long cursorId, int limit);
+
+    long countPage(String receiver, String role);
+}
@@ -0,0 +1,35 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.Notification;
+import jakarta.persistence.EntityManager;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class NotificationPageRepositoryImpl implements NotificationPageRepository {
+
+    private final KeysetPageQuery<Notification> pageQuery;
+
+    NotificationPageRepositoryImpl(EntityManager entityManager) {
+        this.pageQuery = new KeysetPageQuery<>(entityManager, Notification.class, "Notification n", "", "n.send_date", "n.id");
+    }
+
+    @Override
+    public List<Notification> findPage(String receiver, String role, Date cursorDate, Long cursorId, int limit) {
+        return pageQuery.find(filters(receiver, role), cursorDate, cursorId, limit);
+    }
+
+    @Override
+    public long countPage(String receiver, String role) {
+        return pageQuery.count(filters(receiver, role));
+    }
+
+    private static Map<String, Object> filters(String receiver, String role) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("n.receiver", receiver);
+        filters.put("n.role", role);
+        return filters;
+    }
+}
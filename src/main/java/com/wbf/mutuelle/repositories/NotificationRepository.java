@@ -1,6 +1,9 @@
 package com.wbf.mutuelle.repositories;
 
+import com.wbf.mutuelle.dto.NotificationSearchHit;
 import com.wbf.mutuelle.entities.Notification;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,7 +13,7 @@ import java.util.Date;
 import java.util.List;
 
 @Repository
-public interface NotificationRepository extends JpaRepository<Notification, Long> {
+public interface NotificationRepository extends JpaRepository<Notification, Long>, NotificationPageRepository {
 
     // Recherche par destinataire
     List<Notification> findByReceiver(String receiver);
@@ -42,9 +45,39 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.receiver = :receiver")
     Long countByReceiver(@Param("receiver") String receiver);
 
-    // Recherche de notifications contenant un texte spécifique dans le message
-    @Query("SELECT n FROM Notification n WHERE LOWER(n.msg) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Notification> findByMessageContaining(@Param("keyword") String keyword);
+    // Recherche plein texte (configuration french) sur la colonne générée msg_tsv, index GIN ;
+    // :keyword suit la syntaxe websearch ("expression exacte", -exclu, or)
+    @Query(value = "SELECT n.id AS id, n.msg AS msg, n.send_date AS \"sendDate\", n.event_date AS \"eventDate\", " +
+            "n.receiver AS receiver, n.phone AS phone, n.role AS role, ts_rank(n.msg_tsv, q) AS rank " +
+            "FROM notification n, websearch_to_tsquery('french', :keyword) q " +
+            "WHERE n.msg_tsv @@ q " +
+            "AND (CAST(:receiver AS text) IS NULL OR n.receiver = :receiver) " +
+            "AND (CAST(:role AS text) IS NULL OR n.role = :role) " +
+            "ORDER BY rank DESC, n.send_date DESC NULLS LAST, n.id DESC",
+            countQuery = "SELECT COUNT(*) FROM notification n WHERE n.msg_tsv @@ websearch_to_tsquery('french', :keyword) " +
+                    "AND (CAST(:receiver AS text) IS NULL OR n.receiver = :receiver) " +
+                    "AND (CAST(:role AS text) IS NULL OR n.role = :role)",
+            nativeQuery = true)
+    Page<NotificationSearchHit> searchFullText(@Param("keyword") String keyword,
+                                               @Param("receiver") String receiver,
+                                               @Param("role") String role,
+                                               Pageable pageable);
+
+    // Repli (notification.search.mode=like) pour une base sans la colonne msg_tsv : parcours séquentiel
+    @Query(value = "SELECT n.id AS id, n.msg AS msg, n.send_date AS \"sendDate\", n.event_date AS \"eventDate\", " +
+            "n.receiver AS receiver, n.phone AS phone, n.role AS role, CAST(0 AS real) AS rank " +
+            "FROM notification n WHERE lower(n.msg) LIKE :pattern " +
+            "AND (CAST(:receiver AS text) IS NULL OR n.receiver = :receiver) " +
+            "AND (CAST(:role AS text) IS NULL OR n.role = :role) " +
+            "ORDER BY n.send_date DESC NULLS LAST, n.id DESC",
+            countQuery = "SELECT COUNT(*) FROM notification n WHERE lower(n.msg) LIKE :pattern " +
+                    "AND (CAST(:receiver AS text) IS NULL OR n.receiver = :receiver) " +
+                    "AND (CAST(:role AS text) IS NULL OR n.role = :role)",
+            nativeQuery = true)
+    Page<NotificationSearchHit> searchLike(@Param("pattern") String pattern,
+                                           @Param("receiver") String receiver,
+                                           @Param("role") String role,
+                                           Pageable pageable);
 
     // Recherche par destinataire avec pagination
     @Query("SELECT n FROM Notification n WHERE n.receiver = :receiver ORDER BY n.send_date DESC")
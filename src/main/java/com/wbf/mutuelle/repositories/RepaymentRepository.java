@@ -1,8 +1,14 @@
 package com.wbf.mutuelle.repositories;
 
+import com.wbf.mutuelle.dto.OverdueRepaymentView;
 import com.wbf.mutuelle.entities.Repayment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -10,6 +16,7 @@ import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RepaymentRepository extends JpaRepository<Repayment, Long> {
@@ -93,6 +100,9 @@ public interface RepaymentRepository extends JpaRepository<Repayment, Long> {
     @Query("SELECT r FROM Repayment r WHERE (r.loanRequest.member.id = :memberId OR r.loan.member.id = :memberId) AND r.status IN ('PENDING', 'OVERDUE') ORDER BY r.dueDate ASC")
     List<Repayment> findNextDueRepaymentByMember(@Param("memberId") Long memberId);
 
+    @Query("SELECT r FROM Repayment r WHERE (r.loanRequest.member.id = :memberId OR r.loan.member.id = :memberId) AND r.status IN ('PENDING', 'OVERDUE') ORDER BY r.dueDate ASC")
+    List<Repayment> findNextDueRepaymentsByMember(@Param("memberId") Long memberId, Pageable pageable);
+
     // Historique des remboursements avec pagination et tri
     @Query("SELECT r FROM Repayment r WHERE " +
             "(:memberId IS NULL OR r.loanRequest.member.id = :memberId OR r.loan.member.id = :memberId) AND " +
@@ -123,4 +133,38 @@ public interface RepaymentRepository extends JpaRepository<Repayment, Long> {
     // Remboursements d'une demande de prêt avec statut spécifique, triés par date d'échéance
     @Query("SELECT r FROM Repayment r WHERE r.loanRequest.id = :loanRequestId AND r.status = :status ORDER BY r.dueDate ASC")
     List<Repayment> findByLoanRequestIdAndStatusOrdered(@Param("loanRequestId") Long loanRequestId, @Param("status") String status);
-}
\ No newline at end of file
+
+    // Export en flux : lecture par curseur (fetch size) sans matérialiser tout l'historique
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Repayment r " +
+            "LEFT JOIN r.loanRequest lr LEFT JOIN lr.member lrm " +
+            "LEFT JOIN r.loan l LEFT JOIN l.member lm " +
+            "WHERE (:allStatuses = true OR r.status IN :statuses) " +
+            "AND (:memberId IS NULL OR lrm.id = :memberId OR lm.id = :memberId) " +
+            "ORDER BY r.id")
+    Stream<Repayment> streamRepaymentHistory(@Param("statuses") List<String> statuses,
+                                             @Param("allStatuses") boolean allStatuses,
+                                             @Param("memberId") Long memberId);
+
+    // Marquage des retards par lots : identifiants, cibles de notification puis mise à jour en masse
+    @Query("SELECT r.id FROM Repayment r WHERE r.status = 'PENDING' AND r.dueDate < :date ORDER BY r.id")
+    List<Long> findPendingIdsDueBefore(@Param("date") Date date, Pageable pageable);
+
+    // Variante incrémentale : seulement les échéances dont la date est passée depuis le dernier point de reprise
+    @Query("SELECT r.id FROM Repayment r WHERE r.status = 'PENDING' AND r.dueDate >= :from AND r.dueDate < :date ORDER BY r.id")
+    List<Long> findPendingIdsDueBetween(@Param("from") Date from, @Param("date") Date date, Pageable pageable);
+
+    @Query("SELECT r.id AS id, r.amount AS amount, COALESCE(lrm.email, lm.email) AS email " +
+            "FROM Repayment r " +
+            "LEFT JOIN r.loanRequest lr LEFT JOIN lr.member lrm " +
+            "LEFT JOIN r.loan l LEFT JOIN l.member lm " +
+            "WHERE r.id IN :ids")
+    List<OverdueRepaymentView> findOverdueNotificationTargets(@Param("ids") List<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Repayment r SET r.status = 'OVERDUE' WHERE r.id IN :ids AND r.status = 'PENDING'")
+    int markOverdue(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,37 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    // Crée la ligne du verrou si elle n'existe pas encore (déjà expirée)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO scheduler_lock (name, locked_until, locked_at, locked_by) " +
+            "VALUES (:name, :now, :now, '') ON CONFLICT (name) DO NOTHING", nativeQuery = true)
+    int createIfAbsent(@Param("name") String name, @Param("now") Instant now);
+
+    // Prise du verrou atomique : ne réussit que si le verrou précédent a expiré
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :until, l.lockedAt = :now, l.lockedBy = :lockedBy " +
+            "WHERE l.name = :name AND l.lockedUntil <= :now")
+    int tryAcquire(@Param("name") String name,
+                   @Param("now") Instant now,
+                   @Param("until") Instant until,
+                   @Param("lockedBy") String lockedBy);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :now WHERE l.name = :name AND l.lockedBy = :lockedBy")
+    int release(@Param("name") String name, @Param("now") Instant now, @Param("lockedBy") String lockedBy);
+}
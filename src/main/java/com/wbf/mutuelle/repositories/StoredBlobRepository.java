@@ -0,0 +1,47 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    // Ajoute une référence : la ligne est créée si besoin, sinon verrouillée jusqu'à la fin de la transaction
+    @Modifying
+    @Query(value = "INSERT INTO stored_blob (content_hash, size_bytes, ref_count, created_at) VALUES (:hash, :size, 1, now()) " +
+            "ON CONFLICT (content_hash) DO UPDATE SET ref_count = stored_blob.ref_count + 1, orphaned_at = NULL",
+            nativeQuery = true)
+    int addReference(@Param("hash") String hash, @Param("size") long size);
+
+    @Modifying
+    @Query(value = "UPDATE stored_blob SET ref_count = ref_count - 1, " +
+            "orphaned_at = CASE WHEN ref_count = 1 THEN now() ELSE orphaned_at END " +
+            "WHERE content_hash = :hash AND ref_count > 0", nativeQuery = true)
+    int removeReference(@Param("hash") String hash);
+
+    @Query(value = "SELECT content_hash FROM stored_blob WHERE ref_count = 0 AND orphaned_at < :cutoff " +
+            "ORDER BY orphaned_at LIMIT :limit", nativeQuery = true)
+    List<String> findOrphanHashes(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    // Ne supprime que si aucune référence n'a été ajoutée entre-temps
+    @Modifying
+    @Query(value = "DELETE FROM stored_blob WHERE content_hash = :hash AND ref_count = 0", nativeQuery = true)
+    int deleteIfOrphan(@Param("hash") String hash);
+
+    @Query("SELECT b.contentHash FROM StoredBlob b WHERE b.contentHash IN :hashes")
+    List<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+
+    // Contenu présent sur disque sans ligne : enregistré orphelin, sans toucher une ligne existante
+    @Modifying
+    @Query(value = "INSERT INTO stored_blob (content_hash, size_bytes, ref_count, created_at, orphaned_at) " +
+            "VALUES (:hash, :size, 0, now(), now()) ON CONFLICT (content_hash) DO NOTHING", nativeQuery = true)
+    int adoptOrphan(@Param("hash") String hash, @Param("size") long size);
+}
@@ -0,0 +1,25 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.FileCategory;
+import com.wbf.mutuelle.entities.StoredFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+    Optional<StoredFile> findByFilenameAndCategory(String filename, FileCategory category);
+
+    // Fichiers adressés par contenu que plus aucune cotisation ni aucun membre ne référence
+    // (justificatif jamais rattaché, cotisation supprimée, photo de profil remplacée)
+    @Query(value = "SELECT f.* FROM stored_file f WHERE f.content_hash IS NOT NULL AND f.created_at < :cutoff " +
+            "AND NOT EXISTS (SELECT 1 FROM contribution c WHERE c.payment_proof = f.filename) " +
+            "AND NOT EXISTS (SELECT 1 FROM member m WHERE m.profile_image = f.filename) " +
+            "ORDER BY f.created_at LIMIT :limit", nativeQuery = true)
+    List<StoredFile> findUnreferenced(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
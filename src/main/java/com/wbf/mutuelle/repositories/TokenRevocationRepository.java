@@ -0,0 +1,23 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, String> {
+
+    List<TokenRevocation> findByRevokedAtAfter(Instant since);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevocation t WHERE t.revokedAt < :before")
+    int deleteOlderThan(@Param("before") Instant before);
+}
@@ -0,0 +1,582 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.dto.ImportReport;
+import com.wbf.mutuelle.entities.Contribution;
+import com.wbf.mutuelle.entities.ContributionPeriod;
+import com.wbf.mutuelle.entities.ContributionType;
+import com.wbf.mutuelle.entities.Member;
+import com.wbf.mutuelle.entities.Role;
+import com.wbf.mutuelle.repositories.ContributionPeriodRepository;
+import com.wbf.mutuelle.repositories.ContributionRepository;
+import com.wbf.mutuelle.repositories.MemberRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Import en masse de cotisations et de membres depuis un fichier CSV ou XLSX.
+ * Le fichier est lu ligne à ligne, chaque ligne est validée contre les membres et périodes
+ * chargés une fois au début, puis les lignes valides sont enregistrées par lots de CHUNK_SIZE,
+ * un lot par transaction ; un lot en échec est repris ligne par ligne. La mémoire utilisée ne dépend pas de la taille du fichier.
+ */
+@Slf4j
+@Service
+public class BulkImportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final DateTimeFormatter FRENCH_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final ContributionRepository contributionRepository;
+    private final ContributionPeriodRepository contributionPeriodRepository;
+    private final MemberRepository memberRepository;
+    private final ContributionBalanceService contributionBalanceService;
+    private final ContributionStatisticsService contributionStatisticsService;
+    private final MemberFinancialSummaryService memberFinancialSummaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordEncoder passwordEncoder;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public BulkImportService(ContributionRepository contributionRepository,
+                             ContributionPeriodRepository contributionPeriodRepository,
+                             MemberRepository memberRepository,
+                             ContributionBalanceService contributionBalanceService,
+                             ContributionStatisticsService contributionStatisticsService,
+                             MemberFinancialSummaryService memberFinancialSummaryService,
+                             ApplicationEventPublisher eventPublisher,
+                             PasswordEncoder passwordEncoder,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager) {
+        this.contributionRepository = contributionRepository;
+        this.contributionPeriodRepository = contributionPeriodRepository;
+        this.memberRepository = memberRepository;
+        this.contributionBalanceService = contributionBalanceService;
+        this.contributionStatisticsService = contributionStatisticsService;
+        this.memberFinancialSummaryService = memberFinancialSummaryService;
+        this.eventPublisher = eventPublisher;
+        this.passwordEncoder = passwordEncoder;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Colonnes : email ou memberId, periodId ou period (nom), amount, paymentDate, paymentMode, paymentProof.
+     * Chaque ligne crée une cotisation individuelle.
+     */
+    public ImportReport importContributions(MultipartFile file) throws IOException {
+        return runImport("CONTRIBUTIONS", file, new ContributionImporter());
+    }
+
+    /**
+     * Colonnes : name, firstName, email, phone, npi, role.
+     * Les membres importés reçoivent un mot de passe aléatoire et passent par « mot de passe oublié ».
+     */
+    public ImportReport importMembers(MultipartFile file) throws IOException {
+        return runImport("MEMBERS", file, new MemberImporter());
+    }
+
+    // =============================================
+    // DÉROULEMENT D'UN IMPORT
+    // =============================================
+
+    private <R> ImportReport runImport(String type, MultipartFile file, RowImporter<R> importer) throws IOException {
+        String filename = file.getOriginalFilename();
+        if (!ImportFileReader.isSupported(filename)) {
+            throw new IllegalArgumentException("Format non supporté : fichier .csv ou .xlsx attendu");
+        }
+
+        ImportReport report = new ImportReport();
+        report.setType(type);
+        report.setFileName(filename);
+        long start = System.nanoTime();
+
+        // Copie sur disque : le XLSX est lu sans charger l'archive en mémoire
+        Path temp = Files.createTempFile("import-", filename.substring(filename.lastIndexOf('.')));
+        try {
+            file.transferTo(temp);
+            ImportRun<R> run = new ImportRun<>(importer, report, !ImportFileReader.isXlsx(filename));
+            ImportFileReader.read(temp, filename, run::onRow);
+            run.flush();
+        } catch (IllegalArgumentException | IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Lecture du fichier impossible : " + e.getMessage(), e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        report.setDurationMs(elapsedNanos / 1_000_000);
+        report.setRowsPerSecond(elapsedNanos > 0 ? report.getTotalRows() * 1_000_000_000.0 / elapsedNanos : 0);
+
+        log.info("Import {} ({}) : {} lignes, {} importées, {} en erreur en {} ms ({} lignes/s)",
+                type, filename, report.getTotalRows(), report.getImportedRows(), report.getFailedRows(),
+                report.getDurationMs(), Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+
+    /**
+     * État d'un import : en-tête, lot en attente et rapport.
+     */
+    private final class ImportRun<R> {
+
+        private final RowImporter<R> importer;
+        private final ImportReport report;
+        // Nombres saisis à la française ("5 000,50") : CSV uniquement, le XLSX fournit la valeur brute
+        private final boolean frenchNumbers;
+        private boolean headerRead;
+        private List<Long> pendingRowNumbers = new ArrayList<>(CHUNK_SIZE);
+        private List<R> pendingRows = new ArrayList<>(CHUNK_SIZE);
+
+        private ImportRun(RowImporter<R> importer, ImportReport report, boolean frenchNumbers) {
+            this.importer = importer;
+            this.report = report;
+            this.frenchNumbers = frenchNumbers;
+        }
+
+        private void onRow(long rowNumber, List<String> cells) {
+            if (!headerRead) {
+                Map<String, Integer> columns = new HashMap<>();
+                for (int i = 0; i < cells.size(); i++) {
+                    if (cells.get(i) != null) {
+                        columns.putIfAbsent(normalizeHeader(cells.get(i)), i);
+                    }
+                }
+                importer.readHeader(columns);
+                headerRead = true;
+                return;
+            }
+
+            report.setTotalRows(report.getTotalRows() + 1);
+            try {
+                pendingRows.add(importer.parse(new Row(cells, frenchNumbers)));
+                pendingRowNumbers.add(rowNumber);
+            } catch (IllegalArgumentException e) {
+                fail(report, rowNumber, e.getMessage());
+            }
+            if (pendingRows.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (pendingRows.isEmpty()) {
+                return;
+            }
+            List<R> rows = pendingRows;
+            List<Long> rowNumbers = pendingRowNumbers;
+            pendingRows = new ArrayList<>(CHUNK_SIZE);
+            pendingRowNumbers = new ArrayList<>(CHUNK_SIZE);
+
+            try {
+                persist(rows);
+                report.setImportedRows(report.getImportedRows() + rows.size());
+            } catch (Exception e) {
+                log.warn("Échec de l'enregistrement d'un lot de {} lignes (lignes {} à {}), nouvel essai ligne par ligne",
+                        rows.size(), rowNumbers.get(0), rowNumbers.get(rowNumbers.size() - 1), e);
+                // Seules les lignes fautives sont rejetées, les autres sont enregistrées une à une
+                for (int i = 0; i < rows.size(); i++) {
+                    List<R> row = List.of(rows.get(i));
+                    try {
+                        persist(row);
+                        report.setImportedRows(report.getImportedRows() + 1);
+                    } catch (Exception rowError) {
+                        importer.discard(row);
+                        fail(report, rowNumbers.get(i), "Ligne non enregistrée : "
+                                + NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                    }
+                }
+            }
+        }
+
+        private void persist(List<R> rows) {
+            transactionTemplate.executeWithoutResult(status -> {
+                importer.persist(rows);
+                // Libère les entités du lot : le contexte de persistance ne grossit pas
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+
+    private static void fail(ImportReport report, long rowNumber, String message) {
+        report.setFailedRows(report.getFailedRows() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ImportReport.RowError(rowNumber, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    /**
+     * Validation et enregistrement d'un type de ligne.
+     */
+    private interface RowImporter<R> {
+        void readHeader(Map<String, Integer> columns);
+
+        // IllegalArgumentException = ligne rejetée avec ce message
+        R parse(Row row);
+
+        // Appelée dans la transaction du lot
+        void persist(List<R> rows);
+
+        // Lot annulé : oublier ce qu'il avait réservé
+        default void discard(List<R> rows) {
+        }
+    }
+
+    // =============================================
+    // COTISATIONS
+    // =============================================
+
+    private record ContributionRow(Long memberId, Long periodId, BigDecimal amount, Date paymentDate,
+                                   String paymentMode, String paymentProof) {
+    }
+
+    private final class ContributionImporter implements RowImporter<ContributionRow> {
+
+        private final Map<String, Long> memberIdsByEmail = new HashMap<>();
+        private final Set<Long> memberIds = new HashSet<>();
+        private final Map<Long, ContributionPeriod> periodsById = new HashMap<>();
+        private final Map<String, ContributionPeriod> periodsByName = new HashMap<>();
+
+        private Integer memberIdColumn;
+        private Integer emailColumn;
+        private Integer periodIdColumn;
+        private Integer periodNameColumn;
+        private Integer amountColumn;
+        private Integer paymentDateColumn;
+        private Integer paymentModeColumn;
+        private Integer paymentProofColumn;
+
+        private ContributionImporter() {
+            // Membres et périodes chargés une fois pour tout le fichier
+            for (Object[] member : memberRepository.findAllIdsAndEmails()) {
+                Long id = (Long) member[0];
+                memberIds.add(id);
+                if (member[1] != null) {
+                    memberIdsByEmail.put(((String) member[1]).trim().toLowerCase(Locale.ROOT), id);
+                }
+            }
+            for (ContributionPeriod period : contributionPeriodRepository.findAll()) {
+                periodsById.put(period.getId(), period);
+                if (period.getName() != null) {
+                    periodsByName.putIfAbsent(period.getName().trim().toLowerCase(Locale.ROOT), period);
+                }
+            }
+        }
+
+        @Override
+        public void readHeader(Map<String, Integer> columns) {
+            memberIdColumn = column(columns, "memberid", "membreid", "idmembre");
+            emailColumn = column(columns, "email", "mail");
+            periodIdColumn = column(columns, "periodid", "periodeid", "idperiode");
+            periodNameColumn = column(columns, "period", "periode", "periodname");
+            amountColumn = column(columns, "amount", "montant");
+            paymentDateColumn = column(columns, "paymentdate", "datepaiement", "date");
+            paymentModeColumn = column(columns, "paymentmode", "modepaiement", "mode");
+            paymentProofColumn = column(columns, "paymentproof", "preuvepaiement", "reference");
+
+            if (memberIdColumn == null && emailColumn == null) {
+                throw new IllegalArgumentException("Colonne membre manquante : memberId ou email");
+            }
+            if (periodIdColumn == null && periodNameColumn == null) {
+                throw new IllegalArgumentException("Colonne période manquante : periodId ou period");
+            }
+        }
+
+        @Override
+        public ContributionRow parse(Row row) {
+            Long memberId = resolveMember(row);
+            ContributionPeriod period = resolvePeriod(row);
+
+            BigDecimal individualAmount = period.getIndividualAmount();
+            if (individualAmount == null || individualAmount.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Le montant individuel de la période n'est pas défini ou invalide");
+            }
+            // Même règle que la saisie : le montant est celui de la période
+            BigDecimal amount = row.decimal(amountColumn, "Montant");
+            if (amount != null && amount.compareTo(individualAmount) != 0) {
+                throw new IllegalArgumentException("Montant " + amount + " différent du montant de la période (" + individualAmount + ")");
+            }
+
+            Date paymentDate = row.date(paymentDateColumn);
+            return new ContributionRow(memberId, period.getId(), individualAmount,
+                    paymentDate != null ? paymentDate : new Date(),
+                    row.text(paymentModeColumn), row.text(paymentProofColumn));
+        }
+
+        private Long resolveMember(Row row) {
+            Long memberId = row.number(memberIdColumn, "memberId");
+            if (memberId != null) {
+                if (!memberIds.contains(memberId)) {
+                    throw new IllegalArgumentException("Membre non trouvé avec ID: " + memberId);
+                }
+                return memberId;
+            }
+            String email = row.text(emailColumn);
+            if (email == null) {
+                throw new IllegalArgumentException("Membre non renseigné");
+            }
+            Long byEmail = memberIdsByEmail.get(email.toLowerCase(Locale.ROOT));
+            if (byEmail == null) {
+                throw new IllegalArgumentException("Membre non trouvé avec email: " + email);
+            }
+            return byEmail;
+        }
+
+        private ContributionPeriod resolvePeriod(Row row) {
+            Long periodId = row.number(periodIdColumn, "periodId");
+            if (periodId != null) {
+                ContributionPeriod period = periodsById.get(periodId);
+                if (period == null) {
+                    throw new IllegalArgumentException("Période de cotisation non trouvée avec ID: " + periodId);
+                }
+                return period;
+            }
+            String name = row.text(periodNameColumn);
+            if (name == null) {
+                throw new IllegalArgumentException("Période non renseignée");
+            }
+            ContributionPeriod period = periodsByName.get(name.toLowerCase(Locale.ROOT));
+            if (period == null) {
+                throw new IllegalArgumentException("Période de cotisation non trouvée : " + name);
+            }
+            return period;
+        }
+
+        @Override
+        public void persist(List<ContributionRow> rows) {
+            List<Contribution> contributions = new ArrayList<>(rows.size());
+            Map<Long, BigDecimal> deltaByPeriod = new HashMap<>();
+            Map<Long, Set<Long>> membersByPeriod = new HashMap<>();
+            Set<Long> touchedMembers = new LinkedHashSet<>();
+
+            for (ContributionRow row : rows) {
+                Contribution contribution = new Contribution(ContributionType.INDIVIDUAL, row.amount(), row.paymentDate());
+                contribution.setPaymentMode(row.paymentMode());
+                contribution.setPaymentProof(row.paymentProof());
+                // Références sans requête : membres et périodes déjà validés
+                contribution.setContributionPeriod(entityManager.getReference(ContributionPeriod.class, row.periodId()));
+                contribution.setMember(entityManager.getReference(Member.class, row.memberId()));
+                contributions.add(contribution);
+
+                deltaByPeriod.merge(row.periodId(), row.amount(), BigDecimal::add);
+                membersByPeriod.computeIfAbsent(row.periodId(), id -> new HashSet<>()).add(row.memberId());
+                touchedMembers.add(row.memberId());
+            }
+
+            contributionRepository.saveAll(contributions);
+            // Un delta par période pour tout le lot
+            deltaByPeriod.forEach(contributionBalanceService::applyDelta);
+            contributionStatisticsService.invalidate();
+            memberFinancialSummaryService.evict(touchedMembers);
+            membersByPeriod.forEach((periodId, ids) ->
+                    eventPublisher.publishEvent(ContributionsChangedEvent.of(periodId, ids, true)));
+        }
+    }
+
+    // =============================================
+    // MEMBRES
+    // =============================================
+
+    private record MemberRow(String name, String firstName, String email, String phone, String npi, Role role) {
+    }
+
+    private final class MemberImporter implements RowImporter<MemberRow> {
+
+        private final Set<String> knownEmails = new HashSet<>();
+        private String encodedPassword;
+
+        private Integer nameColumn;
+        private Integer firstNameColumn;
+        private Integer emailColumn;
+        private Integer phoneColumn;
+        private Integer npiColumn;
+        private Integer roleColumn;
+
+        private MemberImporter() {
+            for (Object[] member : memberRepository.findAllIdsAndEmails()) {
+                if (member[1] != null) {
+                    knownEmails.add(((String) member[1]).trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+
+        @Override
+        public void readHeader(Map<String, Integer> columns) {
+            nameColumn = column(columns, "name", "nom");
+            firstNameColumn = column(columns, "firstname", "prenom");
+            emailColumn = column(columns, "email", "mail");
+            phoneColumn = column(columns, "phone", "telephone");
+            npiColumn = column(columns, "npi");
+            roleColumn = column(columns, "role");
+
+            if (emailColumn == null || nameColumn == null) {
+                throw new IllegalArgumentException("Colonnes obligatoires manquantes : name et email");
+            }
+        }
+
+        @Override
+        public MemberRow parse(Row row) {
+            String email = row.text(emailColumn);
+            if (email == null || !email.contains("@")) {
+                throw new IllegalArgumentException("Email invalide : " + email);
+            }
+            String name = row.text(nameColumn);
+            if (name == null) {
+                throw new IllegalArgumentException("Nom manquant");
+            }
+
+            Role role = Role.MEMBER;
+            String roleValue = row.text(roleColumn);
+            if (roleValue != null) {
+                try {
+                    role = Role.valueOf(roleValue.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Rôle inconnu : " + roleValue);
+                }
+            }
+
+            // Réservé dès la validation : un doublon plus loin dans le fichier est rejeté
+            if (!knownEmails.add(email.toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("Un membre existe déjà avec l'email: " + email);
+            }
+
+            return new MemberRow(name, row.text(firstNameColumn), email, row.text(phoneColumn),
+                    row.text(npiColumn), role);
+        }
+
+        @Override
+        public void persist(List<MemberRow> rows) {
+            // Un seul hachage par import (BCrypt est volontairement lent) ; le mot de passe n'est communiqué à personne
+            if (encodedPassword == null) {
+                encodedPassword = passwordEncoder.encode(UUID.randomUUID().toString());
+            }
+            // Entités neuves à chaque essai : celles d'un lot annulé ont déjà reçu un id
+            List<Member> members = new ArrayList<>(rows.size());
+            for (MemberRow row : rows) {
+                Member member = new Member();
+                member.setName(row.name());
+                member.setFirstName(row.firstName());
+                member.setEmail(row.email());
+                member.setPhone(row.phone());
+                member.setNpi(row.npi());
+                member.setRole(row.role());
+                member.setIsRegular(false);
+                member.setHasPreviousDebt(false);
+                member.setSubscriptionStatus("PENDING");
+                member.setPassword(encodedPassword);
+                members.add(member);
+            }
+            memberRepository.saveAll(members);
+        }
+
+        @Override
+        public void discard(List<MemberRow> rows) {
+            rows.forEach(row -> knownEmails.remove(row.email().toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    // =============================================
+    // UTILITAIRES
+    // =============================================
+
+    // En-tête normalisé : minuscules, sans accents ni séparateurs ("Date paiement" -> "datepaiement")
+    static String normalizeHeader(String header) {
+        String stripped = Normalizer.normalize(header, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    private static Integer column(Map<String, Integer> columns, String... names) {
+        for (String name : names) {
+            Integer index = columns.get(name);
+            if (index != null) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Accès typé aux cellules d'une ligne ; une valeur mal formée rejette la ligne.
+     */
+    record Row(List<String> cells, boolean frenchNumbers) {
+
+        String text(Integer column) {
+            if (column == null || column >= cells.size() || cells.get(column) == null) {
+                return null;
+            }
+            String value = cells.get(column).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        Long number(Integer column, String label) {
+            String value = text(column);
+            if (value == null) {
+                return null;
+            }
+            try {
+                // Les identifiants lus dans Excel peuvent arriver sous la forme "12.0"
+                return new BigDecimal(value).longValueExact();
+            } catch (ArithmeticException | NumberFormatException e) {
+                throw new IllegalArgumentException(label + " invalide : " + value);
+            }
+        }
+
+        BigDecimal decimal(Integer column, String label) {
+            String value = text(column);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return new BigDecimal(frenchNumbers
+                        ? value.replace(" ", "").replace("\u00A0", "").replace(',', '.')
+                        : value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(label + " invalide : " + value);
+            }
+        }
+
+        Date date(Integer column) {
+            String value = text(column);
+            if (value == null) {
+                return null;
+            }
+            LocalDate date;
+            try {
+                date = value.contains("/") ? LocalDate.parse(value, FRENCH_DATE) : LocalDate.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Date invalide (attendu yyyy-MM-dd ou dd/MM/yyyy) : " + value);
+            }
+            return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        }
+    }
+}
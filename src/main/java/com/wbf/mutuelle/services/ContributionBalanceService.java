@@ -0,0 +1,212 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.dto.BalanceReconciliationReport;
+import com.wbf.mutuelle.entities.ContributionBalance;
+import com.wbf.mutuelle.repositories.ContributionBalanceRepository;
+import com.wbf.mutuelle.repositories.ContributionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Solde des cotisations tenu en continu (table contribution_balance) : chaque écriture
+ * applique son delta dans sa propre transaction au lieu de recalculer SUM(amount).
+ * Une réconciliation planifiée recalcule les soldes depuis la table contribution,
+ * signale l'écart éventuel et corrige les lignes.
+ */
+@Slf4j
+@Service
+public class ContributionBalanceService {
+
+    static final String TOTAL_KEY = "TOTAL";
+    static final String JOB_NAME = "contribution-balance-reconciliation";
+
+    private final ContributionBalanceRepository contributionBalanceRepository;
+    private final ContributionRepository contributionRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean reconciliationEnabled;
+    private final Duration lockAtMostFor;
+
+    private final Counter consistentCounter;
+    private final Counter correctedCounter;
+    private final Counter failureCounter;
+    private final AtomicReference<BigDecimal> lastDrift = new AtomicReference<>(BigDecimal.ZERO);
+
+    public ContributionBalanceService(ContributionBalanceRepository contributionBalanceRepository,
+                                      ContributionRepository contributionRepository,
+                                      SchedulerLockService schedulerLockService,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${contribution.balance.reconciliation.enabled:true}") boolean reconciliationEnabled,
+                                      @Value("${contribution.balance.reconciliation.lock-at-most-for:PT10M}") Duration lockAtMostFor) {
+        this.contributionBalanceRepository = contributionBalanceRepository;
+        this.contributionRepository = contributionRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconciliationEnabled = reconciliationEnabled;
+        this.lockAtMostFor = lockAtMostFor;
+
+        this.consistentCounter = meterRegistry.counter("contribution.balance.reconciliations", "outcome", "consistent");
+        this.correctedCounter = meterRegistry.counter("contribution.balance.reconciliations", "outcome", "corrected");
+        this.failureCounter = meterRegistry.counter("contribution.balance.reconciliations", "outcome", "failure");
+        Gauge.builder("contribution.balance.drift", lastDrift, drift -> drift.get().doubleValue())
+                .description("Écart entre le solde tenu et la somme des cotisations lors de la dernière réconciliation")
+                .register(meterRegistry);
+    }
+
+    // =============================================
+    // MISE À JOUR DU SOLDE
+    // =============================================
+
+    /**
+     * Applique le delta d'une écriture de cotisation. Doit être appelée dans la transaction
+     * de l'écriture : le solde et la cotisation sont validés ou annulés ensemble.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDelta(Long periodId, BigDecimal delta) {
+        if (delta == null || delta.signum() == 0) {
+            return;
+        }
+        // Toujours TOTAL en premier : même ordre de verrouillage pour toutes les écritures
+        contributionBalanceRepository.addDelta(TOTAL_KEY, delta);
+        contributionBalanceRepository.addDelta(periodKey(periodId), delta);
+    }
+
+    // =============================================
+    // LECTURE
+    // =============================================
+
+    public BigDecimal getTotalBalance() {
+        return contributionBalanceRepository.findAmountByKey(TOTAL_KEY)
+                .orElseGet(() -> {
+                    // Ligne absente (base non initialisée) : la prochaine réconciliation la crée
+                    log.warn("Solde courant absent, calcul par SUM sur les cotisations");
+                    BigDecimal total = contributionRepository.calculateTotalBalance();
+                    return total != null ? total : BigDecimal.ZERO;
+                });
+    }
+
+    public BigDecimal getPeriodBalance(Long periodId) {
+        return contributionBalanceRepository.findAmountByKey(periodKey(periodId)).orElse(BigDecimal.ZERO);
+    }
+
+    // =============================================
+    // RÉCONCILIATION
+    // =============================================
+
+    @Scheduled(cron = "${contribution.balance.reconciliation.cron:0 30 2 * * *}")
+    public void scheduledReconciliation() {
+        if (!reconciliationEnabled || !schedulerLockService.tryLock(JOB_NAME, lockAtMostFor)) {
+            return;
+        }
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Erreur lors de la réconciliation du solde des cotisations", e);
+        } finally {
+            schedulerLockService.unlock(JOB_NAME);
+        }
+    }
+
+    /**
+     * Recalcule les soldes depuis la table contribution et corrige les lignes divergentes.
+     * La ligne TOTAL est verrouillée pendant le calcul : les écritures concurrentes attendent,
+     * ce qui évite de signaler comme écart une cotisation en cours d'enregistrement.
+     */
+    public BalanceReconciliationReport reconcile() {
+        try {
+            BalanceReconciliationReport report = transactionTemplate.execute(status -> reconcileInTransaction());
+            lastDrift.set(report.getDrift());
+            if (report.getBalancesCorrected() > 0) {
+                correctedCounter.increment();
+            } else {
+                consistentCounter.increment();
+            }
+            return report;
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            throw e;
+        }
+    }
+
+    private BalanceReconciliationReport reconcileInTransaction() {
+        Instant now = Instant.now();
+
+        // Crée la ligne TOTAL si besoin, puis la verrouille
+        contributionBalanceRepository.addDelta(TOTAL_KEY, BigDecimal.ZERO);
+        ContributionBalance total = contributionBalanceRepository.lockByKey(TOTAL_KEY)
+                .orElseThrow(() -> new RuntimeException("Solde total introuvable"));
+
+        Map<String, BigDecimal> expected = new HashMap<>();
+        BigDecimal expectedTotal = BigDecimal.ZERO;
+        for (Object[] row : contributionRepository.sumAmountByPeriod()) {
+            BigDecimal sum = row[1] != null ? (BigDecimal) row[1] : BigDecimal.ZERO;
+            expected.merge(periodKey((Long) row[0]), sum, BigDecimal::add);
+            expectedTotal = expectedTotal.add(sum);
+        }
+
+        int corrected = 0;
+        BigDecimal ledgerTotal = total.getAmount();
+        if (ledgerTotal.compareTo(expectedTotal) != 0) {
+            log.warn("Écart sur le solde total des cotisations : tenu {}, attendu {}", ledgerTotal, expectedTotal);
+            total.setAmount(expectedTotal);
+            total.setUpdatedAt(now);
+            corrected++;
+        }
+
+        for (ContributionBalance balance : contributionBalanceRepository.findPeriodBalances()) {
+            BigDecimal expectedAmount = expected.remove(balance.getBalanceKey());
+            if (expectedAmount == null) {
+                expectedAmount = BigDecimal.ZERO;
+            }
+            if (balance.getAmount().compareTo(expectedAmount) != 0) {
+                log.warn("Écart sur le solde {} : tenu {}, attendu {}", balance.getBalanceKey(), balance.getAmount(), expectedAmount);
+                balance.setAmount(expectedAmount);
+                balance.setUpdatedAt(now);
+                corrected++;
+            }
+        }
+
+        // Périodes avec des cotisations mais sans ligne de solde
+        for (Map.Entry<String, BigDecimal> missing : expected.entrySet()) {
+            log.warn("Solde {} absent, attendu {}", missing.getKey(), missing.getValue());
+            ContributionBalance balance = new ContributionBalance(missing.getKey());
+            balance.setAmount(missing.getValue());
+            balance.setUpdatedAt(now);
+            contributionBalanceRepository.save(balance);
+            corrected++;
+        }
+
+        BalanceReconciliationReport report = new BalanceReconciliationReport();
+        report.setLedgerTotal(ledgerTotal);
+        report.setExpectedTotal(expectedTotal);
+        report.setDrift(ledgerTotal.subtract(expectedTotal));
+        report.setBalancesCorrected(corrected);
+        report.setReconciledAt(now);
+
+        if (corrected == 0) {
+            log.info("Réconciliation du solde des cotisations : aucun écart ({})", expectedTotal);
+        }
+        return report;
+    }
+
+    static String periodKey(Long periodId) {
+        return periodId != null ? "PERIOD_" + periodId : "PERIOD_NONE";
+    }
+}
@@ -0,0 +1,527 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.configuration.CacheConfig;
+import com.wbf.mutuelle.dto.ComplianceSyncReport;
+import com.wbf.mutuelle.dto.MemberArrearsView;
+import com.wbf.mutuelle.dto.MemberArrearsView.UnpaidPeriod;
+import com.wbf.mutuelle.dto.PeriodComplianceView;
+import com.wbf.mutuelle.entities.ContributionPeriod;
+import com.wbf.mutuelle.repositories.ContributionPeriodRepository;
+import com.wbf.mutuelle.repositories.ContributionRepository;
+import com.wbf.mutuelle.repositories.MemberRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Matrice membres × périodes des cotisations payées, tenue en mémoire sous forme
+ * d'un BitSet par période. Elle est construite par une seule requête en flux puis
+ * complétée à chaque nouvelle cotisation, sans verrou (copie sur écriture) ; une modification
+ * ou une suppression la marque à reconstruire en arrière-plan, les lectures servant la matrice
+ * précédente en attendant. Chaque instance tient sa propre matrice : la reconstruction planifiée
+ * borne le retard sur les écritures faites par une autre instance.
+ * Un membre ne doit que les périodes commencées depuis son adhésion (ou sa dernière souscription).
+ */
+@Slf4j
+@Service
+public class ContributionComplianceService {
+
+    static final String SYNC_JOB_NAME = "contribution-compliance-sync";
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+    // Membre sans date d'adhésion ni de souscription : toutes les périodes lui sont comptées
+    private static final long UNKNOWN_BASELINE = Long.MIN_VALUE;
+
+    private final ContributionRepository contributionRepository;
+    private final ContributionPeriodRepository contributionPeriodRepository;
+    private final MemberRepository memberRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean syncEnabled;
+    private final boolean syncDryRun;
+    private final Duration lockAtMostFor;
+
+    private final AtomicReference<Matrix> matrix = new AtomicReference<>();
+    private final AtomicBoolean stale = new AtomicBoolean();
+    // Reconstruction en arrière-plan : une seule en file, les demandes suivantes s'y ajoutent
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService rebuildExecutor;
+    // Sérialise les reconstructions entre elles ; les ajouts de cotisations ne le prennent jamais
+    private final Object rebuildLock = new Object();
+    // Ajouts validés pendant une reconstruction : rejoués sur la matrice construite, dont la lecture
+    // a pu commencer avant leur validation
+    private volatile boolean rebuilding;
+    private final Queue<ContributionsChangedEvent> additionsDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    public ContributionComplianceService(ContributionRepository contributionRepository,
+                                         ContributionPeriodRepository contributionPeriodRepository,
+                                         MemberRepository memberRepository,
+                                         SchedulerLockService schedulerLockService,
+                                         CacheManager cacheManager,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${contribution.compliance.sync.enabled:false}") boolean syncEnabled,
+                                         @Value("${contribution.compliance.sync.dry-run:true}") boolean syncDryRun,
+                                         @Value("${contribution.compliance.sync.lock-at-most-for:PT10M}") Duration lockAtMostFor) {
+        this.contributionRepository = contributionRepository;
+        this.contributionPeriodRepository = contributionPeriodRepository;
+        this.memberRepository = memberRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.syncEnabled = syncEnabled;
+        this.syncDryRun = syncDryRun;
+        this.lockAtMostFor = lockAtMostFor;
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "contribution-compliance-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    // =============================================
+    // LECTURE
+    // =============================================
+
+    public PeriodComplianceView getPeriodCompliance(Long periodId) {
+        Matrix current = currentMatrix();
+        int periodIndex = current.periodIndex(periodId);
+        if (periodIndex < 0) {
+            // Période créée depuis la dernière construction ; un id inconnu ne déclenche pas de reconstruction
+            if (!contributionPeriodRepository.existsById(periodId)) {
+                throw new RuntimeException("Période de cotisation non trouvée avec ID: " + periodId);
+            }
+            current = rebuild();
+            periodIndex = current.periodIndex(periodId);
+            if (periodIndex < 0) {
+                throw new RuntimeException("Période de cotisation non trouvée avec ID: " + periodId);
+            }
+        }
+
+        ContributionPeriod period = current.periods[periodIndex];
+        BitSet paid = current.paid[periodIndex];
+        // Membres concernés : adhérents au début de la période, ou l'ayant payée malgré tout
+        BitSet concerned = (BitSet) paid.clone();
+        for (int m = 0; m < current.memberIds.length; m++) {
+            if (appliesTo(period, current.baselines[m])) {
+                concerned.set(m);
+            }
+        }
+        BitSet unpaid = (BitSet) concerned.clone();
+        unpaid.andNot(paid);
+        List<Long> defaulters = new ArrayList<>(unpaid.cardinality());
+        for (int m = unpaid.nextSetBit(0); m >= 0; m = unpaid.nextSetBit(m + 1)) {
+            defaulters.add(current.memberIds[m]);
+        }
+
+        return new PeriodComplianceView(periodId, period.getName(),
+                concerned.cardinality(), paid.cardinality(), defaulters, current.builtAt);
+    }
+
+    /**
+     * Périodes commencées depuis l'adhésion du membre qu'il n'a pas payées.
+     */
+    public MemberArrearsView getMemberArrears(Long memberId) {
+        Matrix current = currentMatrix();
+        int memberIndex = current.memberIndex(memberId);
+        if (memberIndex < 0) {
+            if (!memberRepository.existsById(memberId)) {
+                throw new RuntimeException("Membre non trouvé avec ID: " + memberId);
+            }
+            current = rebuild();
+            memberIndex = current.memberIndex(memberId);
+            if (memberIndex < 0) {
+                throw new RuntimeException("Membre non trouvé avec ID: " + memberId);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        int duePeriods = 0;
+        List<UnpaidPeriod> unpaid = new ArrayList<>();
+        BigDecimal totalDue = BigDecimal.ZERO;
+        for (int p = 0; p < current.periods.length; p++) {
+            ContributionPeriod period = current.periods[p];
+            if (!isDue(period, now) || !appliesTo(period, current.baselines[memberIndex])) {
+                continue;
+            }
+            duePeriods++;
+            if (!current.paid[p].get(memberIndex)) {
+                BigDecimal amountDue = period.getIndividualAmount() != null ? period.getIndividualAmount() : BigDecimal.ZERO;
+                unpaid.add(new UnpaidPeriod(period.getId(), period.getName(), amountDue));
+                totalDue = totalDue.add(amountDue);
+            }
+        }
+
+        return new MemberArrearsView(memberId, duePeriods, unpaid, totalDue, current.builtAt);
+    }
+
+    // =============================================
+    // MISE À JOUR DE LA MATRICE
+    // =============================================
+
+    /**
+     * Après validation d'une écriture : une nouvelle cotisation positionne ses bits,
+     * toute autre modification (ou un membre / une période inconnus) impose une reconstruction,
+     * faite en arrière-plan. Ne prend aucun verrou : une reconstruction en cours ne fait pas attendre
+     * la transaction qui vient d'être validée.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContributionsChanged(ContributionsChangedEvent event) {
+        if (!event.additionOnly() || event.periodId() == null) {
+            markStale();
+            return;
+        }
+        // Enregistré avant l'application : la reconstruction le rejoue si elle publie après nous
+        if (rebuilding) {
+            additionsDuringRebuild.add(event);
+        }
+        if (!applyAddition(event)) {
+            markStale();
+        }
+    }
+
+    /**
+     * Date de référence d'un membre modifiée ou membre supprimé : les périodes dues changent,
+     * la matrice est reconstruite en arrière-plan.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberBaselineChanged(MemberBaselineChangedEvent event) {
+        markStale();
+    }
+
+    // Copie sur écriture publiée par compareAndSet : les lectures en cours gardent une matrice cohérente
+    private boolean applyAddition(ContributionsChangedEvent event) {
+        while (true) {
+            Matrix current = matrix.get();
+            if (current == null) {
+                return true;
+            }
+            Matrix updated = current.withPayments(event.periodId(), event.memberIds());
+            if (updated == null) {
+                return false;
+            }
+            if (matrix.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    private void markStale() {
+        stale.set(true);
+        if (matrix.get() != null && rebuildQueued.compareAndSet(false, true)) {
+            try {
+                rebuildExecutor.execute(() -> {
+                    rebuildQueued.set(false);
+                    try {
+                        rebuild();
+                    } catch (Exception e) {
+                        log.error("Erreur lors de la reconstruction de la matrice des cotisations", e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rebuildQueued.set(false);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${contribution.compliance.rebuild-interval:PT15M}",
+            initialDelayString = "${contribution.compliance.rebuild-interval:PT15M}")
+    public void scheduledRebuild() {
+        // Rien à faire tant que personne n'a consulté la matrice
+        if (matrix.get() == null) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Erreur lors de la reconstruction de la matrice des cotisations", e);
+        }
+    }
+
+    /**
+     * Reconstruit la matrice : une requête pour les membres et leur date d'adhésion, une pour les périodes
+     * et une lecture en flux des couples (membre, période) payés.
+     */
+    private Matrix rebuild() {
+        synchronized (rebuildLock) {
+            additionsDuringRebuild.clear();
+            rebuilding = true;
+            try {
+                stale.set(false);
+                Matrix built = readOnlyTransaction.execute(status -> build());
+                matrix.set(built);
+            } finally {
+                rebuilding = false;
+            }
+            for (ContributionsChangedEvent event; (event = additionsDuringRebuild.poll()) != null; ) {
+                if (!applyAddition(event)) {
+                    stale.set(true);
+                }
+            }
+            return matrix.get();
+        }
+    }
+
+    private Matrix build() {
+        long start = System.currentTimeMillis();
+
+        List<Object[]> members = memberRepository.findComplianceBaselines();
+        long[] memberIds = new long[members.size()];
+        long[] baselines = new long[members.size()];
+        for (int m = 0; m < memberIds.length; m++) {
+            Object[] row = members.get(m);
+            memberIds[m] = ((Number) row[0]).longValue();
+            baselines[m] = baseline((LocalDate) row[1], (LocalDate) row[2]);
+        }
+        ContributionPeriod[] periods = contributionPeriodRepository.findAll().stream()
+                .sorted(Comparator.comparing(ContributionPeriod::getId))
+                .toArray(ContributionPeriod[]::new);
+        long[] periodIds = Arrays.stream(periods).mapToLong(ContributionPeriod::getId).toArray();
+
+        BitSet[] paid = new BitSet[periods.length];
+        for (int p = 0; p < paid.length; p++) {
+            paid[p] = new BitSet(memberIds.length);
+        }
+
+        int[] pairs = {0};
+        try (Stream<Object[]> rows = contributionRepository.streamPaidMemberPeriods()) {
+            rows.forEach(row -> {
+                int m = Arrays.binarySearch(memberIds, ((Number) row[0]).longValue());
+                int p = Arrays.binarySearch(periodIds, ((Number) row[1]).longValue());
+                if (m >= 0 && p >= 0) {
+                    paid[p].set(m);
+                    pairs[0]++;
+                }
+            });
+        }
+
+        log.info("Matrice des cotisations construite : {} membres × {} périodes, {} paiements en {} ms",
+                memberIds.length, periods.length, pairs[0], System.currentTimeMillis() - start);
+        return new Matrix(memberIds, baselines, periodIds, periods, paid, Instant.now());
+    }
+
+    // Seule la première construction est faite par l'appelant ; ensuite une matrice
+    // à reconstruire est servie pendant que la reconstruction se fait en arrière-plan
+    private Matrix currentMatrix() {
+        Matrix current = matrix.get();
+        if (current != null) {
+            if (stale.get()) {
+                markStale();
+            }
+            return current;
+        }
+        synchronized (rebuildLock) {
+            // Une lecture concurrente a pu construire la matrice entre-temps
+            current = matrix.get();
+            return current != null ? current : rebuild();
+        }
+    }
+
+    // =============================================
+    // SYNCHRONISATION DU STATUT DES MEMBRES
+    // =============================================
+
+    @Scheduled(cron = "${contribution.compliance.sync.cron:0 0 3 * * *}")
+    public void scheduledSync() {
+        if (!syncEnabled || !schedulerLockService.tryLock(SYNC_JOB_NAME, lockAtMostFor)) {
+            return;
+        }
+        try {
+            syncMemberStatuses(syncDryRun);
+        } catch (Exception e) {
+            log.error("Erreur lors de la synchronisation du statut de cotisation des membres", e);
+        } finally {
+            schedulerLockService.unlock(SYNC_JOB_NAME);
+        }
+    }
+
+    /**
+     * Met à jour isRegular / subscriptionStatus des membres d'après la matrice : à jour de
+     * toutes les périodes commencées depuis l'adhésion = ACTIVE, sinon EXPIRED. Les membres
+     * sans date d'adhésion et ceux dont le statut a été fixé manuellement ne sont pas modifiés.
+     * À blanc, seul le rapport est produit (nombre de membres qui seraient modifiés).
+     */
+    public ComplianceSyncReport syncMemberStatuses(boolean dryRun) {
+        Matrix current = rebuild();
+        long now = System.currentTimeMillis();
+        Set<Long> manual = new HashSet<>(memberRepository.findManualStatusIds());
+
+        List<Long> regularIds = new ArrayList<>();
+        List<Long> irregularIds = new ArrayList<>();
+        int skipped = 0;
+        int manualCount = 0;
+        for (int m = 0; m < current.memberIds.length; m++) {
+            long memberId = current.memberIds[m];
+            if (current.baselines[m] == UNKNOWN_BASELINE) {
+                skipped++;
+            } else if (manual.contains(memberId)) {
+                manualCount++;
+            } else {
+                (isRegular(current, m, now) ? regularIds : irregularIds).add(memberId);
+            }
+        }
+
+        int updated;
+        if (dryRun) {
+            Long changes = readOnlyTransaction.execute(status ->
+                    countInChunks(regularIds, true, "ACTIVE") + countInChunks(irregularIds, false, "EXPIRED"));
+            updated = changes != null ? changes.intValue() : 0;
+        } else {
+            Integer changes = transactionTemplate.execute(status ->
+                    updateInChunks(regularIds, true, "ACTIVE") + updateInChunks(irregularIds, false, "EXPIRED"));
+            updated = changes != null ? changes : 0;
+            // Mise à jour en masse hors MemberService : les profils en cache portent l'ancien statut
+            Cache profiles = cacheManager.getCache(CacheConfig.MEMBER_PROFILES);
+            if (profiles != null && updated > 0) {
+                profiles.clear();
+            }
+        }
+
+        ComplianceSyncReport report = new ComplianceSyncReport();
+        report.setMembersChecked(current.memberIds.length);
+        report.setRegularCount(regularIds.size());
+        report.setIrregularCount(irregularIds.size());
+        report.setSkippedCount(skipped);
+        report.setManualCount(manualCount);
+        report.setDryRun(dryRun);
+        report.setMembersUpdated(updated);
+        report.setSyncedAt(Instant.now());
+
+        log.info("Statut de cotisation synchronisé{} : {} à jour, {} en retard, {} sans date d'adhésion, " +
+                        "{} fixés manuellement, {} membres modifiés", dryRun ? " (à blanc)" : "",
+                report.getRegularCount(), report.getIrregularCount(), skipped, manualCount, updated);
+        return report;
+    }
+
+    private boolean isRegular(Matrix current, int memberIndex, long now) {
+        for (int p = 0; p < current.periods.length; p++) {
+            ContributionPeriod period = current.periods[p];
+            if (isDue(period, now) && appliesTo(period, current.baselines[memberIndex])
+                    && !current.paid[p].get(memberIndex)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long countInChunks(List<Long> memberIds, boolean regular, String status) {
+        long count = 0;
+        for (int from = 0; from < memberIds.size(); from += UPDATE_CHUNK_SIZE) {
+            List<Long> chunk = memberIds.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, memberIds.size()));
+            count += memberRepository.countComplianceChanges(chunk, regular, status);
+        }
+        return count;
+    }
+
+    private int updateInChunks(List<Long> memberIds, boolean regular, String status) {
+        int updated = 0;
+        for (int from = 0; from < memberIds.size(); from += UPDATE_CHUNK_SIZE) {
+            List<Long> chunk = memberIds.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, memberIds.size()));
+            updated += memberRepository.updateComplianceStatus(chunk, regular, status);
+        }
+        return updated;
+    }
+
+    // Une période est due dès sa date de début
+    private boolean isDue(ContributionPeriod period, long now) {
+        return period.getStartDate() != null && period.getStartDate().getTime() <= now;
+    }
+
+    // Seules les périodes commençant le jour de l'adhésion ou après sont dues par le membre
+    private static boolean appliesTo(ContributionPeriod period, long baseline) {
+        return period.getStartDate() != null && period.getStartDate().getTime() >= baseline;
+    }
+
+    // La plus récente des deux dates, en début de journée
+    static long baseline(LocalDate joinedAt, LocalDate lastSubscriptionDate) {
+        LocalDate since = joinedAt == null ? lastSubscriptionDate
+                : lastSubscriptionDate == null || joinedAt.isAfter(lastSubscriptionDate) ? joinedAt : lastSubscriptionDate;
+        return since != null ? since.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() : UNKNOWN_BASELINE;
+    }
+
+    /**
+     * Instantané immuable : paid[p].get(m) indique si le membre memberIds[m] a payé la période periodIds[p] ;
+     * baselines[m] est le début (epoch ms) de la journée à partir de laquelle il doit cotiser.
+     */
+    private static final class Matrix {
+        private final long[] memberIds;
+        private final long[] baselines;
+        private final long[] periodIds;
+        private final ContributionPeriod[] periods;
+        private final BitSet[] paid;
+        private final Instant builtAt;
+
+        private Matrix(long[] memberIds, long[] baselines, long[] periodIds, ContributionPeriod[] periods,
+                       BitSet[] paid, Instant builtAt) {
+            this.memberIds = memberIds;
+            this.baselines = baselines;
+            this.periodIds = periodIds;
+            this.periods = periods;
+            this.paid = paid;
+            this.builtAt = builtAt;
+        }
+
+        private int memberIndex(Long memberId) {
+            return memberId != null ? Arrays.binarySearch(memberIds, memberId) : -1;
+        }
+
+        private int periodIndex(Long periodId) {
+            return periodId != null ? Arrays.binarySearch(periodIds, periodId) : -1;
+        }
+
+        // Copie où les membres ont payé la période ; null si la période ou un membre est inconnu
+        private Matrix withPayments(Long periodId, Collection<Long> paidMemberIds) {
+            int periodIndex = periodIndex(periodId);
+            if (periodIndex < 0) {
+                return null;
+            }
+            BitSet column = (BitSet) paid[periodIndex].clone();
+            for (Long memberId : paidMemberIds) {
+                int memberIndex = memberIndex(memberId);
+                if (memberIndex < 0) {
+                    return null;
+                }
+                column.set(memberIndex);
+            }
+            BitSet[] columns = paid.clone();
+            columns[periodIndex] = column;
+            return new Matrix(memberIds, baselines, periodIds, periods, columns, builtAt);
+        }
+    }
+}
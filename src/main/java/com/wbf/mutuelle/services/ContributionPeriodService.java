@@ -1,11 +1,16 @@
 package com.wbf.mutuelle.services;
 
+import com.wbf.mutuelle.configuration.CacheConfig;
 import com.wbf.mutuelle.entities.ContributionPeriod;
 import com.wbf.mutuelle.repositories.ContributionPeriodRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -13,19 +18,37 @@ public class ContributionPeriodService {
 
     private final ContributionPeriodRepository repository;
 
+    @Cacheable(cacheNames = CacheConfig.CONTRIBUTION_PERIOD_LISTS, key = "'all'")
     public List<ContributionPeriod> getAll() {
         return repository.findAll();
     }
 
+    @Cacheable(cacheNames = CacheConfig.CONTRIBUTION_PERIOD_LISTS, key = "'active'")
+    public List<ContributionPeriod> getActive() {
+        return repository.findByActiveTrue();
+    }
+
+    @Cacheable(cacheNames = CacheConfig.CONTRIBUTION_PERIODS, key = "#id")
     public ContributionPeriod getById(Long id) {
         return repository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Période non trouvée avec id " + id));
     }
 
+    // Même cache que getById ; une période absente n'est pas mise en cache
+    @Cacheable(cacheNames = CacheConfig.CONTRIBUTION_PERIODS, key = "#id", unless = "#result == null")
+    public Optional<ContributionPeriod> findById(Long id) {
+        return repository.findById(id);
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.CONTRIBUTION_PERIOD_LISTS, allEntries = true)
     public ContributionPeriod create(ContributionPeriod period) {
         return repository.save(period);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CONTRIBUTION_PERIODS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CONTRIBUTION_PERIOD_LISTS, allEntries = true)
+    })
     public ContributionPeriod update(Long id, ContributionPeriod updated) {
         return repository.findById(id).map(existing -> {
             existing.setStartDate(updated.getStartDate());
@@ -38,6 +61,10 @@ public class ContributionPeriodService {
         }).orElseThrow(() -> new RuntimeException("Période non trouvée avec id " + id));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CONTRIBUTION_PERIODS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CONTRIBUTION_PERIOD_LISTS, allEntries = true)
+    })
     public void delete(Long id) {
         if (!repository.existsById(id)) {
             throw new RuntimeException("Impossible de supprimer : période avec id " + id + " inexistante.");
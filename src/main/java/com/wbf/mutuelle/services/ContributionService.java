@@ -1,18 +1,35 @@
 package com.wbf.mutuelle.services;
 
+import com.wbf.mutuelle.dto.ContributionExportRow;
+import com.wbf.mutuelle.dto.CursorPage;
+import com.wbf.mutuelle.dto.KeysetCursor;
 import com.wbf.mutuelle.entities.Contribution;
 import com.wbf.mutuelle.entities.ContributionPeriod;
 import com.wbf.mutuelle.entities.ContributionType;
+import com.wbf.mutuelle.entities.Member;
 import com.wbf.mutuelle.repositories.ContributionRepository;
-import com.wbf.mutuelle.repositories.ContributionPeriodRepository;
+import com.wbf.mutuelle.repositories.MemberRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -20,12 +37,18 @@ import java.util.List;
 public class ContributionService {
 
     private final ContributionRepository contributionRepository;
-    private final ContributionPeriodRepository contributionPeriodRepository;
+    private final ContributionPeriodService contributionPeriodService;
+    private final MemberRepository memberRepository;
+    private final ExportService exportService;
+    private final ContributionBalanceService contributionBalanceService;
+    private final ContributionStatisticsService contributionStatisticsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // =============================================
     // MÉTHODES CRUD DE BASE
     // =============================================
 
+    @Transactional
     public Contribution createContribution(Contribution contribution) {
         try {
             // Validation de base
@@ -34,7 +57,7 @@ public class ContributionService {
             }
 
             // Récupérer la période complète avec le montant individuel
-            ContributionPeriod period = contributionPeriodRepository
+            ContributionPeriod period = contributionPeriodService
                     .findById(contribution.getContributionPeriod().getId())
                     .orElseThrow(() -> new RuntimeException("Période de contribution non trouvée !"));
 
@@ -44,12 +67,14 @@ public class ContributionService {
 
             // Date de paiement par défaut
             if (contribution.getPaymentDate() == null) {
-                contribution.setPaymentDate(new java.util.Date());
+                contribution.setPaymentDate(new Date());
             }
 
             Contribution savedContribution = contributionRepository.save(contribution);
+            contributionBalanceService.applyDelta(period.getId(), savedContribution.getAmount());
+            publishContributionChange(savedContribution, true);
 
-            // Calculer et assigner la balance totale après sauvegarde
+            // Balance totale tenue à jour dans la même transaction
             BigDecimal totalBalance = calculateTotalBalance();
             savedContribution.setBalance(totalBalance);
 
@@ -61,9 +86,74 @@ public class ContributionService {
         }
     }
 
+    /**
+     * Cotisation groupée : une cotisation individuelle par membre, validées une seule fois
+     * et insérées en lot dans une même transaction, sous une référence de groupe commune.
+     */
+    @Transactional
+    public List<Contribution> createGroupContributions(Long contributionPeriodId, List<Long> memberIds,
+                                                       String paymentMode, String paymentProof) {
+        Set<Long> distinctIds = new LinkedHashSet<>();
+        if (memberIds != null) {
+            memberIds.stream().filter(Objects::nonNull).forEach(distinctIds::add);
+        }
+        if (distinctIds.size() < 2) {
+            throw new RuntimeException("Une cotisation groupée doit concerner au moins 2 membres !");
+        }
+        if (contributionPeriodId == null) {
+            throw new RuntimeException("La période de contribution doit être spécifiée !");
+        }
+
+        ContributionPeriod period = contributionPeriodService.findById(contributionPeriodId)
+                .orElseThrow(() -> new RuntimeException("Période de cotisation non trouvée avec ID: " + contributionPeriodId));
+        BigDecimal individualAmount = period.getIndividualAmount();
+        if (individualAmount == null || individualAmount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("Le montant individuel de la période n'est pas défini ou invalide !");
+        }
+
+        // Tous les membres en une requête
+        Map<Long, Member> membersById = memberRepository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(Member::getId, Function.identity()));
+        for (Long memberId : distinctIds) {
+            if (!membersById.containsKey(memberId)) {
+                throw new RuntimeException("Membre non trouvé avec ID: " + memberId);
+            }
+        }
+
+        String groupReference = "GROUP_" + UUID.randomUUID();
+        Date paymentDate = new Date();
+        List<Contribution> contributions = new ArrayList<>(distinctIds.size());
+        for (Long memberId : distinctIds) {
+            Contribution contribution = new Contribution(ContributionType.INDIVIDUAL, individualAmount, paymentDate);
+            contribution.setPaymentMode(paymentMode);
+            contribution.setPaymentProof(paymentProof);
+            contribution.setContributionPeriod(period);
+            contribution.setMember(membersById.get(memberId));
+            contribution.setGroupReference(groupReference);
+            contributions.add(contribution);
+        }
+
+        List<Contribution> savedContributions = contributionRepository.saveAll(contributions);
+
+        // Un seul delta pour tout le groupe
+        BigDecimal groupTotal = individualAmount.multiply(BigDecimal.valueOf(savedContributions.size()));
+        contributionBalanceService.applyDelta(period.getId(), groupTotal);
+        contributionStatisticsService.invalidate();
+        eventPublisher.publishEvent(MemberFinancialChangedEvent.of(distinctIds));
+        eventPublisher.publishEvent(ContributionsChangedEvent.of(period.getId(), distinctIds, true));
+        BigDecimal totalBalance = calculateTotalBalance();
+        savedContributions.forEach(contribution -> contribution.setBalance(totalBalance));
+
+        log.info("Cotisation groupée {} : {} membres, total {}", groupReference, savedContributions.size(), groupTotal);
+        return savedContributions;
+    }
+
+    @Transactional
     public Contribution updateContribution(Long id, Contribution contributionDetails) {
         try {
             Contribution contribution = getContributionById(id);
+            BigDecimal previousAmount = contribution.getAmount();
+            Long previousPeriodId = periodIdOf(contribution);
 
             // Mettre à jour les champs modifiables
             if (contributionDetails.getPaymentDate() != null) {
@@ -82,7 +172,7 @@ public class ContributionService {
                     !contributionDetails.getContributionPeriod().getId()
                             .equals(contribution.getContributionPeriod().getId())) {
 
-                ContributionPeriod newPeriod = contributionPeriodRepository
+                ContributionPeriod newPeriod = contributionPeriodService
                         .findById(contributionDetails.getContributionPeriod().getId())
                         .orElseThrow(() -> new RuntimeException("Nouvelle période non trouvée !"));
 
@@ -92,8 +182,10 @@ public class ContributionService {
             }
 
             Contribution updatedContribution = contributionRepository.save(contribution);
+            applyBalanceChange(previousPeriodId, previousAmount, periodIdOf(updatedContribution), updatedContribution.getAmount());
+            publishContributionChange(updatedContribution, false);
 
-            // Recalculer et assigner la balance totale après mise à jour
+            // Balance totale tenue à jour dans la même transaction
             BigDecimal totalBalance = calculateTotalBalance();
             updatedContribution.setBalance(totalBalance);
 
@@ -104,10 +196,16 @@ public class ContributionService {
         }
     }
 
+    @Transactional
     public void deleteContribution(Long id) {
         try {
             Contribution contribution = getContributionById(id);
+            Long periodId = periodIdOf(contribution);
+            BigDecimal amount = contribution.getAmount();
+
+            publishContributionChange(contribution, false);
             contributionRepository.delete(contribution);
+            applyBalanceChange(periodId, amount, null, null);
         } catch (Exception e) {
             log.error("Erreur lors de la suppression de la contribution ID: " + id, e);
             throw new RuntimeException("Erreur lors de la suppression de la contribution : " + e.getMessage());
@@ -142,6 +240,27 @@ public class ContributionService {
         return contribution;
     }
 
+    /**
+     * Page de cotisations triées par date de paiement puis id décroissants, à partir d'un curseur.
+     * Le total n'est compté que sur demande.
+     */
+    public CursorPage<Contribution> getContributionsPage(ContributionType contributionType, Long periodId, Long memberId,
+                                                         String cursor, Integer limit, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int size = CursorPage.clampLimit(limit);
+
+        List<Contribution> fetched = contributionRepository.findPage(contributionType, periodId, memberId,
+                after != null ? after.date() : null, after != null ? after.id() : null, size + 1);
+        Long total = includeTotal ? contributionRepository.countPage(contributionType, periodId, memberId) : null;
+
+        CursorPage<Contribution> page = CursorPage.of(fetched, size,
+                contribution -> new KeysetCursor(contribution.getPaymentDate(), contribution.getId()), total);
+
+        BigDecimal totalBalance = calculateTotalBalance();
+        page.items().forEach(contribution -> contribution.setBalance(totalBalance));
+        return page;
+    }
+
     // =============================================
     // MÉTHODES DE RECHERCHE ET FILTRAGE
     // =============================================
@@ -244,7 +363,7 @@ public class ContributionService {
      */
     public BigDecimal getTotalContributionsAmount() {
         try {
-            BigDecimal total = contributionRepository.getTotalAmount();
+            BigDecimal total = contributionBalanceService.getTotalBalance();
             log.info("Montant total de toutes les contributions: {}", total);
             return total != null ? total : BigDecimal.ZERO;
         } catch (Exception e) {
@@ -274,12 +393,12 @@ public class ContributionService {
     }
 
     /**
-     * Calcule la balance totale de toutes les cotisations
+     * Balance totale de toutes les cotisations, lue dans le solde courant (sans SUM sur la table)
      */
     public BigDecimal calculateTotalBalance() {
         try {
-            BigDecimal totalBalance = contributionRepository.calculateTotalBalance();
-            log.info("Balance totale calculée: {}", totalBalance);
+            BigDecimal totalBalance = contributionBalanceService.getTotalBalance();
+            log.debug("Balance totale: {}", totalBalance);
             return totalBalance != null ? totalBalance : BigDecimal.ZERO;
         } catch (Exception e) {
             log.error("Erreur lors du calcul de la balance totale", e);
@@ -300,6 +419,20 @@ public class ContributionService {
         }
     }
 
+    // =============================================
+    // EXPORT
+    // =============================================
+
+    /**
+     * Exporte les cotisations en .xlsx directement dans la sortie, ligne par ligne
+     */
+    @Transactional(readOnly = true)
+    public void exportContributionsToExcel(ContributionType contributionType, Long periodId, OutputStream out) throws IOException {
+        try (Stream<ContributionExportRow> rows = contributionRepository.streamExportRows(contributionType, periodId)) {
+            exportService.writeContributionsExcel(rows, "Cotisations", out);
+        }
+    }
+
     // =============================================
     // MÉTHODES UTILITAIRES SUPPLÉMENTAIRES
     // =============================================
@@ -335,8 +468,21 @@ public class ContributionService {
     /**
      * Met à jour la balance d'une cotisation après sauvegarde
      */
+    @Transactional
     public Contribution saveContributionWithBalance(Contribution contribution) {
+        BigDecimal previousAmount = null;
+        Long previousPeriodId = null;
+        if (contribution.getId() != null) {
+            Contribution existing = contributionRepository.findById(contribution.getId()).orElse(null);
+            if (existing != null) {
+                previousAmount = existing.getAmount();
+                previousPeriodId = periodIdOf(existing);
+            }
+        }
+
         Contribution savedContribution = contributionRepository.save(contribution);
+        applyBalanceChange(previousPeriodId, previousAmount, periodIdOf(savedContribution), savedContribution.getAmount());
+        publishContributionChange(savedContribution, previousAmount == null);
 
         // Calculer et définir la balance totale
         BigDecimal balance = calculateTotalBalance();
@@ -345,6 +491,41 @@ public class ContributionService {
         return savedContribution;
     }
 
+    /**
+     * Reporte sur le solde courant le passage d'un montant (période, montant) à un autre.
+     * Un montant null signifie « pas de cotisation » (création ou suppression).
+     */
+    private void applyBalanceChange(Long previousPeriodId, BigDecimal previousAmount, Long periodId, BigDecimal amount) {
+        BigDecimal before = previousAmount != null ? previousAmount : BigDecimal.ZERO;
+        BigDecimal after = amount != null ? amount : BigDecimal.ZERO;
+
+        if (Objects.equals(previousPeriodId, periodId)) {
+            contributionBalanceService.applyDelta(periodId, after.subtract(before));
+        } else {
+            contributionBalanceService.applyDelta(previousPeriodId, before.negate());
+            contributionBalanceService.applyDelta(periodId, after);
+        }
+    }
+
+    // Résumés financiers à recalculer : le membre (individuelle) ou les membres (groupée) ;
+    // statistiques et matrice des paiements à mettre à jour
+    private void publishContributionChange(Contribution contribution, boolean additionOnly) {
+        contributionStatisticsService.invalidate();
+        List<Long> memberIds = new ArrayList<>();
+        if (contribution.getMember() != null) {
+            memberIds.add(contribution.getMember().getId());
+        }
+        if (contribution.getMembers() != null) {
+            contribution.getMembers().forEach(member -> memberIds.add(member.getId()));
+        }
+        eventPublisher.publishEvent(MemberFinancialChangedEvent.of(memberIds));
+        eventPublisher.publishEvent(ContributionsChangedEvent.of(periodIdOf(contribution), memberIds, additionOnly));
+    }
+
+    private Long periodIdOf(Contribution contribution) {
+        return contribution.getContributionPeriod() != null ? contribution.getContributionPeriod().getId() : null;
+    }
+
     /**
      * Récupère toutes les contributions avec leur balance totale
      */
@@ -392,9 +573,18 @@ public class ContributionService {
         }
     }
 
+    public List<Contribution> getContributionsByGroupReference(String groupReference) {
+        List<Contribution> contributions = contributionRepository.findByGroupReferenceOrderByIdAsc(groupReference);
+        if (!contributions.isEmpty()) {
+            BigDecimal totalBalance = calculateTotalBalance();
+            contributions.forEach(contribution -> contribution.setBalance(totalBalance));
+        }
+        return contributions;
+    }
+
     public List<Contribution> getRecentContributionsByMember(Long memberId, int limit) {
         try {
-            return contributionRepository.findRecentContributionsByMemberId(memberId, PageRequest.of(0, limit));
+            return contributionRepository.findRecentContributionsByMemberId(memberId, limit);
         } catch (Exception e) {
             log.error("Erreur lors de la récupération des contributions récentes du membre ID: " + memberId, e);
             return Collections.emptyList();
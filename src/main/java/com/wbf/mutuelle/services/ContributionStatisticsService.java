@@ -0,0 +1,118 @@
+package com.wbf.mutuelle.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wbf.mutuelle.dto.ContributionStatisticsResponse;
+import com.wbf.mutuelle.dto.ContributionStatisticsResponse.MonthTotal;
+import com.wbf.mutuelle.dto.ContributionStatisticsResponse.PeriodTotal;
+import com.wbf.mutuelle.dto.ContributionStatisticsResponse.TypeTotal;
+import com.wbf.mutuelle.entities.ContributionType;
+import com.wbf.mutuelle.repositories.ContributionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Statistiques des cotisations calculées en une seule requête GROUPING SETS
+ * et gardées en cache peu de temps ; toute écriture de cotisation vide le cache après commit.
+ */
+@Slf4j
+@Service
+public class ContributionStatisticsService {
+
+    private static final String CACHE_KEY = "ALL";
+
+    // Valeurs de GROUPING(type, période, mois) : bit à 1 = colonne agrégée
+    private static final int GRAND_TOTAL = 7;
+    private static final int BY_TYPE = 3;
+    private static final int BY_PERIOD = 5;
+    private static final int BY_MONTH = 6;
+
+    private final ContributionRepository contributionRepository;
+    private final Cache<String, ContributionStatisticsResponse> cache;
+
+    public ContributionStatisticsService(ContributionRepository contributionRepository,
+                                         @Value("${contribution.statistics.cache-ttl:PT30S}") Duration cacheTtl,
+                                         MeterRegistry meterRegistry) {
+        this.contributionRepository = contributionRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "contribution.statistics");
+    }
+
+    public ContributionStatisticsResponse getStatistics() {
+        return cache.get(CACHE_KEY, key -> compute());
+    }
+
+    /**
+     * Vide le cache. Dans une transaction, l'invalidation a lieu à la fin de celle-ci
+     * pour qu'une lecture concurrente ne remette pas en cache des chiffres antérieurs au commit.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidateAll();
+                }
+            });
+        } else {
+            cache.invalidateAll();
+        }
+    }
+
+    private ContributionStatisticsResponse compute() {
+        ContributionStatisticsResponse response = new ContributionStatisticsResponse();
+        List<TypeTotal> byType = new ArrayList<>();
+        List<PeriodTotal> byPeriod = new ArrayList<>();
+        List<MonthTotal> byMonth = new ArrayList<>();
+
+        for (Object[] row : contributionRepository.computeStatisticsByGroupingSets()) {
+            int groupingId = ((Number) row[0]).intValue();
+            BigDecimal amount = row[5] != null ? (BigDecimal) row[5] : BigDecimal.ZERO;
+            long count = ((Number) row[6]).longValue();
+
+            switch (groupingId) {
+                case GRAND_TOTAL -> {
+                    response.setTotalAmount(amount);
+                    response.setTotalCount(count);
+                }
+                case BY_TYPE -> {
+                    ContributionType type = row[1] != null ? ContributionType.valueOf((String) row[1]) : null;
+                    byType.add(new TypeTotal(type, amount, count));
+                    if (type == ContributionType.INDIVIDUAL) {
+                        response.setIndividualAmount(amount);
+                    } else if (type == ContributionType.GROUP) {
+                        response.setGroupAmount(amount);
+                    }
+                }
+                case BY_PERIOD -> byPeriod.add(new PeriodTotal(
+                        row[2] != null ? ((Number) row[2]).longValue() : null, (String) row[3], amount, count));
+                case BY_MONTH -> byMonth.add(new MonthTotal((String) row[4], amount, count));
+                default -> log.warn("Ensemble de regroupement inattendu: {}", groupingId);
+            }
+        }
+
+        byPeriod.sort(Comparator.comparing(PeriodTotal::periodId, Comparator.nullsLast(Comparator.naturalOrder())));
+        byMonth.sort(Comparator.comparing(MonthTotal::month, Comparator.nullsLast(Comparator.naturalOrder())));
+        response.setByType(List.copyOf(byType));
+        response.setByPeriod(List.copyOf(byPeriod));
+        response.setByMonth(List.copyOf(byMonth));
+        response.setComputedAt(Instant.now());
+        return response;
+    }
+}
@@ -0,0 +1,19 @@
+package com.wbf.mutuelle.services;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Publié après une écriture de cotisation. additionOnly = true pour une nouvelle cotisation
+ * (période et membres payés s'ajoutent), false pour une modification ou une suppression.
+ */
+public record ContributionsChangedEvent(Long periodId, Set<Long> memberIds, boolean additionOnly) {
+
+    public static ContributionsChangedEvent of(Long periodId, Collection<Long> memberIds, boolean additionOnly) {
+        return new ContributionsChangedEvent(periodId, memberIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet()), additionOnly);
+    }
+}
@@ -1,8 +1,12 @@
 package com.wbf.mutuelle.services;
 
+import com.wbf.mutuelle.configuration.CacheConfig;
 import com.wbf.mutuelle.entities.Event;
 import com.wbf.mutuelle.repositories.EventRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,18 +23,25 @@ public class EventService {
         this.eventRepository = eventRepository;
     }
 
+    @Cacheable(cacheNames = CacheConfig.EVENT_LISTS, key = "'all'")
     public List<Event> getAllEvents() {
-        return eventRepository.findAll();
+        return eventRepository.findAllWithMembers();
     }
 
+    @Cacheable(cacheNames = CacheConfig.EVENTS, key = "#id", unless = "#result == null")
     public Optional<Event> getEventById(Long id) {
-        return eventRepository.findById(id);
+        return eventRepository.findWithMembersById(id);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.EVENT_LISTS, allEntries = true)
     public Event createEvent(Event event) {
         return eventRepository.save(event);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.EVENTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.EVENT_LISTS, allEntries = true)
+    })
     @Transactional
     public Event updateEvent(Long id, Event eventDetails) {
         return eventRepository.findById(id).map(event -> {
@@ -42,6 +53,10 @@ public class EventService {
         }).orElseThrow(() -> new RuntimeException("Event not found with id " + id));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.EVENTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.EVENT_LISTS, allEntries = true)
+    })
     public void deleteEvent(Long id) {
         eventRepository.deleteById(id);
     }
@@ -0,0 +1,258 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.dto.ExportJobRequest;
+import com.wbf.mutuelle.dto.ExportJobResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Exports asynchrones : les exports tournent sur un pool borné, le résultat est écrit
+ * dans un répertoire de spool puis téléchargé. Deux demandes identiques en cours
+ * partagent le même job.
+ */
+@Slf4j
+@Service
+public class ExportJobService {
+
+    private final RepaymentService repaymentService;
+    private final ContributionService contributionService;
+    private final Path spoolDir;
+    private final Duration retention;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    // Job en cours (PENDING ou RUNNING) pour chaque clé de déduplication
+    private final Map<String, ExportJob> activeJobs = new ConcurrentHashMap<>();
+
+    public ExportJobService(RepaymentService repaymentService,
+                            ContributionService contributionService,
+                            @Value("${export.spool-dir:./exports}") String spoolDir,
+                            @Value("${export.retention:PT24H}") Duration retention,
+                            @Value("${export.jobs.max-concurrent:2}") int maxConcurrent,
+                            @Value("${export.jobs.queue-capacity:20}") int queueCapacity) throws IOException {
+        this.repaymentService = repaymentService;
+        this.contributionService = contributionService;
+        this.spoolDir = Paths.get(spoolDir);
+        this.retention = retention;
+
+        Files.createDirectories(this.spoolDir);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "export-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public ExportJobResponse submit(ExportJobRequest request) {
+        validate(request);
+
+        String key = request.deduplicationKey();
+        ExportJob[] created = new ExportJob[1];
+        ExportJob job = activeJobs.computeIfAbsent(key, k -> {
+            created[0] = new ExportJob(UUID.randomUUID().toString(), k, request);
+            return created[0];
+        });
+
+        if (created[0] == null) {
+            log.info("Export identique déjà en cours, réutilisation du job {}", job.id);
+            return toResponse(job);
+        }
+
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(key, job);
+            jobs.remove(job.id);
+            throw new RuntimeException("Trop d'exports en attente, réessayez plus tard");
+        }
+        return toResponse(job);
+    }
+
+    public Optional<ExportJobResponse> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(this::toResponse);
+    }
+
+    /**
+     * Fichier résultat d'un job terminé.
+     */
+    public Path getResultFile(String id) {
+        ExportJob job = jobs.get(id);
+        if (job == null) {
+            throw new RuntimeException("Job d'export non trouvé");
+        }
+        if (!"COMPLETED".equals(job.status)) {
+            throw new IllegalStateException("Export pas encore terminé (statut: " + job.status + ")");
+        }
+        return job.file;
+    }
+
+    public String getResultFilename(String id) {
+        ExportJob job = jobs.get(id);
+        String prefix = "CONTRIBUTIONS".equals(job.request.getType()) ? "cotisations-" : "historique-remboursements-";
+        return prefix + job.id.substring(0, 8) + extension(job.request.getFormat());
+    }
+
+    private void run(ExportJob job) {
+        job.status = "RUNNING";
+        Path target = spoolDir.resolve(job.id + extension(job.request.getFormat()));
+        Path part = spoolDir.resolve(job.id + ".part");
+
+        try {
+            try (OutputStream out = Files.newOutputStream(part)) {
+                ExportJobRequest request = job.request;
+                if ("CONTRIBUTIONS".equals(request.getType())) {
+                    contributionService.exportContributionsToExcel(request.getContributionType(), request.getPeriodId(), out);
+                } else {
+                    repaymentService.exportRepaymentHistory(request.getStatuses(), request.getMemberId(), request.getFormat(), out);
+                }
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            job.file = target;
+            job.fileSize = Files.size(target);
+            job.status = "COMPLETED";
+            log.info("Export {} terminé ({} octets)", job.id, job.fileSize);
+        } catch (Exception e) {
+            log.error("Erreur lors de l'export {}", job.id, e);
+            deleteQuietly(part);
+            job.error = e.getMessage();
+            job.status = "FAILED";
+        } finally {
+            job.completedAt = Instant.now();
+            activeJobs.remove(job.key, job);
+        }
+    }
+
+    /**
+     * Supprime les jobs terminés et les fichiers du spool plus anciens que la rétention.
+     */
+    @Scheduled(fixedDelayString = "${export.cleanup-interval:PT1H}")
+    public void purgeExpiredExports() {
+        Instant limit = Instant.now().minus(retention);
+
+        jobs.values().removeIf(job -> {
+            boolean expired = job.completedAt != null && job.completedAt.isBefore(limit);
+            if (expired && job.file != null) {
+                deleteQuietly(job.file);
+            }
+            return expired;
+        });
+
+        // Fichiers orphelins (jobs perdus lors d'un redémarrage)
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            files.filter(file -> isOlderThan(file, limit)).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Impossible de parcourir le répertoire d'export {}", spoolDir, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void validate(ExportJobRequest request) {
+        if (request.getType() == null) {
+            request.setType("REPAYMENTS");
+        }
+        if (request.getFormat() == null) {
+            request.setFormat("excel");
+        }
+        if (!List.of("REPAYMENTS", "CONTRIBUTIONS").contains(request.getType())) {
+            throw new IllegalArgumentException("Type d'export non supporté: " + request.getType());
+        }
+        if (!List.of("csv", "excel", "pdf").contains(request.getFormat())) {
+            throw new IllegalArgumentException("Format d'export non supporté: " + request.getFormat());
+        }
+        if ("CONTRIBUTIONS".equals(request.getType()) && !"excel".equals(request.getFormat())) {
+            throw new IllegalArgumentException("Les cotisations ne sont exportables qu'au format excel");
+        }
+    }
+
+    private ExportJobResponse toResponse(ExportJob job) {
+        ExportJobResponse response = new ExportJobResponse();
+        response.setId(job.id);
+        response.setType(job.request.getType());
+        response.setFormat(job.request.getFormat());
+        response.setStatus(job.status);
+        response.setCreatedAt(job.createdAt);
+        response.setCompletedAt(job.completedAt);
+        response.setFileSize(job.fileSize);
+        response.setError(job.error);
+        if ("COMPLETED".equals(job.status)) {
+            response.setDownloadUrl("/mutuelle/export/jobs/" + job.id + "/download");
+        }
+        return response;
+    }
+
+    private String extension(String format) {
+        return switch (format) {
+            case "pdf" -> ".pdf";
+            case "csv" -> ".csv";
+            default -> ".xlsx";
+        };
+    }
+
+    private boolean isOlderThan(Path file, Instant limit) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(limit);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer le fichier d'export {}", file, e);
+        }
+    }
+
+    private static final class ExportJob {
+        private final String id;
+        private final String key;
+        private final ExportJobRequest request;
+        private final Instant createdAt = Instant.now();
+
+        private volatile String status = "PENDING";
+        private volatile Instant completedAt;
+        private volatile Path file;
+        private volatile Long fileSize;
+        private volatile String error;
+
+        private ExportJob(String id, String key, ExportJobRequest request) {
+            this.id = id;
+            this.key = key;
+            this.request = request;
+        }
+    }
+}
@@ -1,48 +1,169 @@
 package com.wbf.mutuelle.services;
 
+import com.wbf.mutuelle.dto.ContributionExportRow;
 import com.wbf.mutuelle.entities.Repayment;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class ExportService {
 
+    // Lignes gardées en mémoire par SXSSF, les autres sont vidées dans un fichier temporaire
+    private static final int EXCEL_ROW_WINDOW = 100;
+    // Limite d'Excel (1 048 576 lignes) : au-delà on continue sur une nouvelle feuille
+    private static final int EXCEL_MAX_ROWS_PER_SHEET = 1_048_576;
+
+    private static final String[] REPAYMENT_HEADERS = {
+            "ID", "Montant", "Date Échéance", "Date Paiement", "N° Échéance", "Total Échéances",
+            "Statut", "Méthode Paiement", "Référence", "Prêt ID"
+    };
+
+    private static final String[] CONTRIBUTION_HEADERS = {
+            "ID", "Type", "Date Paiement", "Montant", "Mode Paiement", "Membre", "Période", "Nombre de membres"
+    };
+
     public byte[] exportToPdf(List<Repayment> repayments, String title) throws IOException {
         // Solution simple : retourner un CSV
         return exportToCsv(repayments);
     }
 
     public byte[] exportToExcel(List<Repayment> repayments, String title) throws IOException {
-        // Solution simple : retourner un CSV (les utilisateurs pourront l'ouvrir avec Excel)
-        return exportToCsv(repayments);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeExcel(repayments.stream(), title, out);
+        return out.toByteArray();
     }
 
     public byte[] exportToCsv(List<Repayment> repayments) throws IOException {
-        StringBuilder csv = new StringBuilder();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeCsv(repayments.stream(), out);
+        return out.toByteArray();
+    }
+
+    // =====================================================
+    // Export en flux : les lignes sont écrites au fil de la lecture
+    // =====================================================
+
+    public void writePdf(Stream<Repayment> repayments, String title, OutputStream out) throws IOException {
+        // Solution simple : écrire un CSV
+        writeCsv(repayments, out);
+    }
+
+    public void writeExcel(Stream<Repayment> repayments, String title, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = newStreamingWorkbook();
+        try {
+            ExcelSheetWriter sheet = new ExcelSheetWriter(workbook, title, REPAYMENT_HEADERS);
+            repayments.forEach(repayment -> {
+                Row row = sheet.nextRow();
+                sheet.number(row, 0, repayment.getId());
+                sheet.amount(row, 1, repayment.getAmount());
+                sheet.date(row, 2, repayment.getDueDate());
+                sheet.date(row, 3, repayment.getRepaymentDate());
+                sheet.number(row, 4, repayment.getInstallmentNumber());
+                sheet.number(row, 5, repayment.getTotalInstallments());
+                sheet.text(row, 6, repayment.getStatus());
+                sheet.text(row, 7, repayment.getPaymentMethod());
+                sheet.text(row, 8, repayment.getTransactionReference());
+                sheet.number(row, 9, repayment.getLoan() != null ? repayment.getLoan().getId() : null);
+            });
+            workbook.write(out);
+            out.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    public void writeContributionsExcel(Stream<ContributionExportRow> contributions, String title, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = newStreamingWorkbook();
+        try {
+            ExcelSheetWriter sheet = new ExcelSheetWriter(workbook, title, CONTRIBUTION_HEADERS);
+            contributions.forEach(contribution -> {
+                Row row = sheet.nextRow();
+                sheet.number(row, 0, contribution.id());
+                sheet.text(row, 1, contribution.contributionType() != null ? contribution.contributionType().name() : null);
+                sheet.date(row, 2, contribution.paymentDate());
+                sheet.amount(row, 3, contribution.amount());
+                sheet.text(row, 4, contribution.paymentMode());
+                sheet.text(row, 5, fullName(contribution.memberFirstName(), contribution.memberName()));
+                sheet.text(row, 6, contribution.periodName());
+                sheet.number(row, 7, contribution.groupMemberCount());
+            });
+            workbook.write(out);
+            out.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    public void writeCsv(Stream<Repayment> repayments, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
 
         // En-têtes CSV
-        csv.append("ID,Montant,Date Échéance,Date Paiement,N° Échéance,Total Échéances,Statut,Méthode Paiement,Référence,Prêt ID\n");
+        writer.write("ID,Montant,Date Échéance,Date Paiement,N° Échéance,Total Échéances,Statut,Méthode Paiement,Référence,Prêt ID\n");
 
         // Données
         SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
-        for (Repayment repayment : repayments) {
-            csv.append(safeToString(repayment.getId())).append(",");
-            csv.append(safeToString(repayment.getAmount())).append(",");
-            csv.append(repayment.getDueDate() != null ? dateFormat.format(repayment.getDueDate()) : "N/A").append(",");
-            csv.append(repayment.getRepaymentDate() != null ? dateFormat.format(repayment.getRepaymentDate()) : "N/A").append(",");
-            csv.append(safeToString(repayment.getInstallmentNumber())).append(",");
-            csv.append(safeToString(repayment.getTotalInstallments())).append(",");
-            csv.append(safeCsvString(repayment.getStatus())).append(",");
-            csv.append(safeCsvString(repayment.getPaymentMethod())).append(",");
-            csv.append(safeCsvString(repayment.getTransactionReference())).append(",");
-            csv.append(repayment.getLoan() != null ? safeToString(repayment.getLoan().getId()) : "N/A").append("\n");
+        StringBuilder line = new StringBuilder(128);
+        try {
+            repayments.forEach(repayment -> {
+                line.setLength(0);
+                line.append(safeToString(repayment.getId())).append(",");
+                line.append(safeToString(repayment.getAmount())).append(",");
+                line.append(repayment.getDueDate() != null ? dateFormat.format(repayment.getDueDate()) : "N/A").append(",");
+                line.append(repayment.getRepaymentDate() != null ? dateFormat.format(repayment.getRepaymentDate()) : "N/A").append(",");
+                line.append(safeToString(repayment.getInstallmentNumber())).append(",");
+                line.append(safeToString(repayment.getTotalInstallments())).append(",");
+                line.append(safeCsvString(repayment.getStatus())).append(",");
+                line.append(safeCsvString(repayment.getPaymentMethod())).append(",");
+                line.append(safeCsvString(repayment.getTransactionReference())).append(",");
+                line.append(repayment.getLoan() != null ? safeToString(repayment.getLoan().getId()) : "N/A").append("\n");
+                try {
+                    writer.append(line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
 
-        return csv.toString().getBytes("UTF-8");
+        writer.flush();
+    }
+
+    private SXSSFWorkbook newStreamingWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    private String fullName(String firstName, String name) {
+        if (firstName == null && name == null) {
+            return null;
+        }
+        if (firstName == null || name == null) {
+            return firstName != null ? firstName : name;
+        }
+        return firstName + " " + name;
     }
 
     // Méthode utilitaire pour gérer les valeurs nulles
@@ -64,4 +185,92 @@ public class ExportService {
         }
         return str;
     }
-}
\ No newline at end of file
+
+    /**
+     * Écriture séquentielle des lignes d'un classeur SXSSF. Les styles sont créés une seule fois
+     * et partagés par toutes les cellules ; une nouvelle feuille est ouverte quand la limite d'Excel est atteinte.
+     */
+    private static final class ExcelSheetWriter {
+
+        private final SXSSFWorkbook workbook;
+        private final String title;
+        private final String[] headers;
+        private final CellStyle headerStyle;
+        private final CellStyle dateStyle;
+        private final CellStyle amountStyle;
+
+        private SXSSFSheet sheet;
+        private int sheetCount;
+        private int rowIndex;
+
+        private ExcelSheetWriter(SXSSFWorkbook workbook, String title, String[] headers) {
+            this.workbook = workbook;
+            this.title = title;
+            this.headers = headers;
+
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            this.headerStyle = workbook.createCellStyle();
+            this.headerStyle.setFont(bold);
+
+            this.dateStyle = workbook.createCellStyle();
+            this.dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy"));
+
+            this.amountStyle = workbook.createCellStyle();
+            this.amountStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
+
+            newSheet();
+        }
+
+        private void newSheet() {
+            sheetCount++;
+            // Les noms de feuille Excel sont limités à 31 caractères
+            String suffix = sheetCount == 1 ? "" : " (" + sheetCount + ")";
+            String base = title.length() + suffix.length() > 31 ? title.substring(0, 31 - suffix.length()) : title;
+            sheet = workbook.createSheet(base + suffix);
+            rowIndex = 0;
+
+            Row header = sheet.createRow(rowIndex++);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+        }
+
+        private Row nextRow() {
+            if (rowIndex >= EXCEL_MAX_ROWS_PER_SHEET) {
+                newSheet();
+            }
+            return sheet.createRow(rowIndex++);
+        }
+
+        private void text(Row row, int column, String value) {
+            if (value != null) {
+                row.createCell(column).setCellValue(value);
+            }
+        }
+
+        private void number(Row row, int column, Number value) {
+            if (value != null) {
+                row.createCell(column).setCellValue(value.doubleValue());
+            }
+        }
+
+        private void amount(Row row, int column, BigDecimal value) {
+            if (value != null) {
+                Cell cell = row.createCell(column);
+                cell.setCellValue(value.doubleValue());
+                cell.setCellStyle(amountStyle);
+            }
+        }
+
+        private void date(Row row, int column, Date value) {
+            if (value != null) {
+                Cell cell = row.createCell(column);
+                cell.setCellValue(value);
+                cell.setCellStyle(dateStyle);
+            }
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.entities.FileCategory;
+import com.wbf.mutuelle.entities.StoredFile;
+import com.wbf.mutuelle.repositories.StoredBlobRepository;
+import com.wbf.mutuelle.repositories.StoredFileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Fichiers téléversés (justificatifs de paiement, photos de profil) : métadonnées (type de
+ * contenu, taille) en base, contenu sur disque adressé par son empreinte SHA-256.
+ * Un même contenu téléversé plusieurs fois n'est écrit qu'une fois ; chaque nom de fichier
+ * en est une référence. Un nettoyage planifié libère les fichiers qui ne sont plus rattachés
+ * à une cotisation ou à un membre, puis supprime les contenus sans référence, y compris ceux
+ * restés sur disque après l'annulation de la transaction qui les avait publiés.
+ */
+@Slf4j
+@Service
+public class FileStorageService {
+
+    static final String GC_JOB_NAME = "upload-blob-gc";
+    private static final int GC_BATCH_SIZE = 500;
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}");
+
+    private final StoredFileRepository storedFileRepository;
+    private final StoredBlobRepository storedBlobRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final Path blobDirectory;
+    // Dans l'arborescence des contenus : le déplacement final reste atomique (même système de fichiers)
+    private final Path tempDirectory;
+    private final Duration gracePeriod;
+    private final Duration lockAtMostFor;
+
+    public FileStorageService(StoredFileRepository storedFileRepository,
+                              StoredBlobRepository storedBlobRepository,
+                              SchedulerLockService schedulerLockService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${upload.blob-dir:./uploads/blobs}") String blobDirectory,
+                              @Value("${upload.gc.grace-period:PT24H}") Duration gracePeriod,
+                              @Value("${upload.gc.lock-at-most-for:PT30M}") Duration lockAtMostFor) {
+        this.storedFileRepository = storedFileRepository;
+        this.storedBlobRepository = storedBlobRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.blobDirectory = Paths.get(blobDirectory).toAbsolutePath().normalize();
+        this.tempDirectory = this.blobDirectory.resolve("tmp");
+        this.gracePeriod = gracePeriod;
+        this.lockAtMostFor = lockAtMostFor;
+    }
+
+    /**
+     * Fichier prêt à être servi : métadonnées du fichier téléversé, chemin sur disque et
+     * en-têtes de la représentation servie (l'original ou une variante). Une représentation
+     * non immuable (original servi en attendant sa miniature) ne doit pas être mise en cache.
+     */
+    public record StoredFileHandle(StoredFile metadata, Path path, String contentType, long sizeBytes,
+                                   String eTag, boolean immutable) {
+
+        public StoredFileHandle(StoredFile metadata, Path path) {
+            this(metadata, path, metadata.getContentType(), metadata.getSizeBytes(), metadata.getETag(), true);
+        }
+
+        public StoredFileHandle mutable() {
+            return new StoredFileHandle(metadata, path, contentType, sizeBytes, eTag, false);
+        }
+    }
+
+    // =============================================
+    // ÉCRITURE / LECTURE
+    // =============================================
+
+    /**
+     * Écrit le flux dans un fichier temporaire en calculant son empreinte, puis le publie
+     * sous son empreinte s'il n'existe pas déjà. La ligne stored_blob reste verrouillée
+     * jusqu'au commit : le nettoyage ne peut pas supprimer le contenu pendant ce temps.
+     */
+    public StoredFileHandle store(MultipartFile file, FileCategory category, String filename) throws IOException {
+        resolve(category, filename);
+        Files.createDirectories(tempDirectory);
+        Path temp = Files.createTempFile(tempDirectory, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            long size = Files.size(temp);
+            // Type lu dans le contenu : un fichier déclaré image/jpeg mais contenant du HTML est refusé
+            String contentType = detectContentType(temp);
+            if (!category.allows(contentType)) {
+                throw new IllegalArgumentException("Type de fichier non supporté. Formats acceptés: "
+                        + (category == FileCategory.PAYMENT_PROOF ? "JPEG, PNG, WebP et PDF" : "JPEG, PNG et WebP"));
+            }
+
+            Path target = blobPath(hash);
+            StoredFile stored = transactionTemplate.execute(status -> {
+                storedBlobRepository.addReference(hash, size);
+                publish(temp, target);
+                return storedFileRepository.save(new StoredFile(filename, category, contentType, size, hash));
+            });
+            return new StoredFileHandle(stored, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Optional<StoredFileHandle> find(FileCategory category, String filename) throws IOException {
+        Path legacyPath = resolve(category, filename);
+        StoredFile metadata = storedFileRepository.findByFilenameAndCategory(filename, category)
+                .orElse(null);
+
+        if (metadata != null && metadata.getContentHash() != null) {
+            Path path = blobPath(metadata.getContentHash());
+            return Files.isRegularFile(path) ? Optional.of(handle(metadata, path)) : Optional.empty();
+        }
+
+        if (!Files.isRegularFile(legacyPath)) {
+            return Optional.empty();
+        }
+        if (metadata == null) {
+            // Fichier téléversé avant l'enregistrement des métadonnées : type lu une seule fois dans le contenu
+            String contentType = detectContentType(legacyPath);
+            metadata = storedFileRepository.save(new StoredFile(filename, category,
+                    category.allows(contentType) ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                    Files.size(legacyPath)));
+            log.info("Métadonnées créées pour le fichier existant {}", filename);
+        }
+        return Optional.of(handle(metadata, legacyPath));
+    }
+
+    // Métadonnées enregistrées avant la détection par contenu : un type hors liste est servi
+    // en application/octet-stream, jamais interprété par le navigateur
+    private static StoredFileHandle handle(StoredFile metadata, Path path) {
+        StoredFileHandle handle = new StoredFileHandle(metadata, path);
+        if (metadata.getCategory().allows(metadata.getContentType())) {
+            return handle;
+        }
+        return new StoredFileHandle(metadata, path, MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                handle.sizeBytes(), handle.eTag(), handle.immutable());
+    }
+
+    /**
+     * Type de contenu d'après les premiers octets du fichier (JPEG, PNG, WebP, PDF),
+     * null pour tout autre contenu.
+     */
+    static String detectContentType(byte[] header, int length) {
+        if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+        if (length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G'
+                && header[4] == '\r' && header[5] == '\n' && header[6] == 0x1A && header[7] == '\n') {
+            return MediaType.IMAGE_PNG_VALUE;
+        }
+        if (length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "image/webp";
+        }
+        if (length >= 5 && header[0] == '%' && header[1] == 'P' && header[2] == 'D' && header[3] == 'F' && header[4] == '-') {
+            return MediaType.APPLICATION_PDF_VALUE;
+        }
+        return null;
+    }
+
+    private static String detectContentType(Path path) throws IOException {
+        byte[] header = new byte[12];
+        try (InputStream in = Files.newInputStream(path)) {
+            return detectContentType(header, in.readNBytes(header, 0, header.length));
+        }
+    }
+
+    // =============================================
+    // NETTOYAGE
+    // =============================================
+
+    @Scheduled(fixedDelayString = "${upload.gc.interval:PT1H}", initialDelayString = "${upload.gc.interval:PT1H}")
+    public void scheduledGarbageCollection() {
+        if (!schedulerLockService.tryLock(GC_JOB_NAME, lockAtMostFor)) {
+            return;
+        }
+        try {
+            collectGarbage();
+        } catch (Exception e) {
+            log.error("Erreur lors du nettoyage des fichiers téléversés", e);
+        } finally {
+            schedulerLockService.unlock(GC_JOB_NAME);
+        }
+    }
+
+    /**
+     * Libère les fichiers non rattachés depuis plus que le délai de grâce (le justificatif
+     * est téléversé avant la création de la cotisation), puis supprime du disque les contenus
+     * restés sans référence pendant ce même délai.
+     */
+    public void collectGarbage() {
+        Instant cutoff = Instant.now().minus(gracePeriod);
+
+        int released = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> {
+                List<StoredFile> files = storedFileRepository.findUnreferenced(cutoff, GC_BATCH_SIZE);
+                for (StoredFile file : files) {
+                    storedFileRepository.delete(file);
+                    storedBlobRepository.removeReference(file.getContentHash());
+                }
+                return files.size();
+            });
+            released += batch;
+        } while (batch == GC_BATCH_SIZE);
+
+        int deleted = 0;
+        List<String> orphans;
+        do {
+            orphans = storedBlobRepository.findOrphanHashes(cutoff, GC_BATCH_SIZE);
+            for (String hash : orphans) {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> deleteOrphan(hash)))) {
+                    deleted++;
+                }
+            }
+        } while (orphans.size() == GC_BATCH_SIZE);
+
+        int adopted = adoptUntrackedBlobs(cutoff);
+
+        if (released > 0 || deleted > 0 || adopted > 0) {
+            log.info("Nettoyage des fichiers téléversés : {} référence(s) libérée(s), {} contenu(s) supprimé(s), " +
+                    "{} contenu(s) sans ligne rattaché(s)", released, deleted, adopted);
+        }
+    }
+
+    // Contenus publiés sur disque dont la transaction a été annulée : ils sont enregistrés orphelins
+    // et supprimés par un passage suivant, sous le même verrou de ligne qu'un orphelin ordinaire.
+    // Les fichiers temporaires abandonnés (arrêt pendant un téléversement) sont supprimés directement.
+    private int adoptUntrackedBlobs(Instant cutoff) {
+        if (!Files.isDirectory(blobDirectory)) {
+            return 0;
+        }
+        int adopted = 0;
+        Map<String, Path> batch = new HashMap<>();
+        try (Stream<Path> files = Files.walk(blobDirectory, 3)) {
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                if (!isOlderThan(file, cutoff)) {
+                    continue;
+                }
+                if (file.startsWith(tempDirectory)) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                String name = file.getFileName().toString();
+                // Seuls les contenus eux-mêmes : pas les variantes ni les marqueurs (<empreinte>.*)
+                if (BLOB_NAME.matcher(name).matches() && file.equals(blobPath(name))) {
+                    batch.put(name, file);
+                }
+                if (batch.size() == GC_BATCH_SIZE) {
+                    adopted += adopt(batch);
+                    batch.clear();
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Parcours des contenus téléversés interrompu", e);
+        }
+        return adopted + adopt(batch);
+    }
+
+    private int adopt(Map<String, Path> files) {
+        if (files.isEmpty()) {
+            return 0;
+        }
+        Set<String> known = new HashSet<>(storedBlobRepository.findExistingHashes(files.keySet()));
+        int adopted = 0;
+        for (Map.Entry<String, Path> file : files.entrySet()) {
+            if (known.contains(file.getKey())) {
+                continue;
+            }
+            try {
+                long size = Files.size(file.getValue());
+                // Un téléversement concurrent non validé du même contenu fait attendre l'INSERT :
+                // s'il valide, sa ligne est conservée telle quelle
+                Integer inserted = transactionTemplate.execute(status ->
+                        storedBlobRepository.adoptOrphan(file.getKey(), size));
+                if (inserted != null && inserted > 0) {
+                    adopted++;
+                }
+            } catch (NoSuchFileException e) {
+                log.debug("Contenu {} supprimé pendant le parcours", file.getKey());
+            } catch (IOException e) {
+                log.warn("Contenu {} illisible, ignoré", file.getKey(), e);
+            }
+        }
+        return adopted;
+    }
+
+    private static boolean isOlderThan(Path file, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Le fichier est supprimé avant le commit, tant que la ligne est verrouillée par le DELETE :
+    // un téléversement concurrent du même contenu attend et republie le fichier
+    private boolean deleteOrphan(String hash) {
+        if (storedBlobRepository.deleteIfOrphan(hash) == 0) {
+            return false;
+        }
+        Path path = blobPath(hash);
+        try {
+            Files.deleteIfExists(path);
+            // Variantes rangées à côté du contenu (<empreinte>.<taille>.jpg)
+            if (Files.isDirectory(path.getParent())) {
+                try (DirectoryStream<Path> variants = Files.newDirectoryStream(path.getParent(), hash + ".*")) {
+                    for (Path variant : variants) {
+                        Files.deleteIfExists(variant);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    // =============================================
+    // CHEMINS
+    // =============================================
+
+    private void publish(Path temp, Path target) {
+        try {
+            if (Files.exists(target)) {
+                log.debug("Contenu {} déjà présent, fichier dédupliqué", target.getFileName());
+                return;
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            log.debug("Contenu {} publié en parallèle", target.getFileName());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Deux niveaux de sous-répertoires (ab/cd/abcd...) : 65 536 dossiers, aucun très peuplé
+    private Path blobPath(String hash) {
+        return blobDirectory.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    // Refuse les noms qui sortent du répertoire de la catégorie ("../", sous-dossiers)
+    private Path resolve(FileCategory category, String filename) {
+        Path directory = Paths.get(category.getDirectory()).toAbsolutePath().normalize();
+        Path path = directory.resolve(filename).normalize();
+        if (filename == null || filename.isBlank() || !path.getParent().equals(directory)) {
+            throw new IllegalArgumentException("Nom de fichier invalide");
+        }
+        return path;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.wbf.mutuelle.services;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lecture ligne à ligne d'un fichier CSV ou XLSX : le CSV est lu en flux (un enregistrement
+ * peut s'étendre sur plusieurs lignes dans un champ entre guillemets), le XLSX avec l'API
+ * événementielle (SAX) de POI. Aucune ligne n'est conservée après son traitement.
+ */
+final class ImportFileReader {
+
+    // Longueur maximale de la première ligne relue après détection du séparateur
+    private static final int HEADER_READ_LIMIT = 64 * 1024;
+
+    /**
+     * Reçoit chaque ligne (numérotée à partir de 1, en-tête compris).
+     */
+    interface RowHandler {
+        void row(long rowNumber, List<String> cells);
+    }
+
+    private ImportFileReader() {
+    }
+
+    static boolean isSupported(String filename) {
+        String lower = filename != null ? filename.toLowerCase() : "";
+        return lower.endsWith(".csv") || lower.endsWith(".xlsx");
+    }
+
+    static boolean isXlsx(String filename) {
+        return filename.toLowerCase().endsWith(".xlsx");
+    }
+
+    static void read(Path file, String filename, RowHandler handler) throws Exception {
+        if (isXlsx(filename)) {
+            readXlsx(file, handler);
+        } else {
+            readCsv(file, handler);
+        }
+    }
+
+    // =============================================
+    // CSV
+    // =============================================
+
+    private static void readCsv(Path file, RowHandler handler) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            readCsv(reader, handler);
+        }
+    }
+
+    /**
+     * Enregistrements CSV (RFC 4180) : un champ entre guillemets peut contenir le séparateur,
+     * des guillemets doublés et des sauts de ligne. Le numéro transmis est celui de la ligne
+     * du fichier où commence l'enregistrement.
+     */
+    static void readCsv(BufferedReader reader, RowHandler handler) throws IOException {
+        // Séparateur déduit de la première ligne, relue ensuite comme en-tête
+        reader.mark(HEADER_READ_LIMIT);
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        reader.reset();
+        // Excel en français exporte avec des points-virgules
+        char delimiter = header.indexOf(';') >= 0 && header.indexOf(',') < 0 ? ';' : ',';
+
+        CsvRecordReader records = new CsvRecordReader(reader, delimiter);
+        // BOM ajouté par Excel
+        records.skipByteOrderMark();
+        List<String> cells;
+        while ((cells = records.next()) != null) {
+            if (cells.size() > 1 || !cells.get(0).isBlank()) {
+                handler.row(records.recordLine, cells);
+            }
+        }
+    }
+
+    private static final class CsvRecordReader {
+
+        private final Reader reader;
+        private final char delimiter;
+        // Caractère lu en avance (-2 : aucun)
+        private int pending = -2;
+        private long line = 1;
+        private long recordLine;
+
+        private CsvRecordReader(Reader reader, char delimiter) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+        }
+
+        private void skipByteOrderMark() throws IOException {
+            int c = read();
+            if (c != '\uFEFF') {
+                pending = c;
+            }
+        }
+
+        // null en fin de fichier
+        private List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+            List<String> cells = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        int next = read();
+                        if (next != '"') {
+                            // Fin du champ entre guillemets : le caractère suivant est traité hors guillemets
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                        cell.append('"');
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        cell.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == delimiter) {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        int next = read();
+                        if (next != '\n') {
+                            pending = next;
+                        }
+                    }
+                    line++;
+                    break;
+                } else {
+                    cell.append((char) c);
+                }
+                c = read();
+            }
+            cells.add(cell.toString());
+            return cells;
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return reader.read();
+        }
+    }
+
+    // =============================================
+    // XLSX (première feuille)
+    // =============================================
+
+    private static void readXlsx(Path file, RowHandler handler) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings,
+                        new RowCollector(handler), new RawValueFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        }
+    }
+
+    /**
+     * Valeurs des cellules numériques indépendantes de leur format d'affichage : les dates au format
+     * yyyy-MM-dd, les nombres sans séparateur de milliers ni arrondi ("5000" pour "5 000,00").
+     */
+    private static final class RawValueFormatter extends DataFormatter {
+
+        private final DecimalFormat plainNumber = new DecimalFormat("0.##########",
+                DecimalFormatSymbols.getInstance(Locale.ROOT));
+
+        private RawValueFormatter() {
+            for (String format : List.of("m/d/yy", "m/d/yyyy", "mm/dd/yy", "mm/dd/yyyy", "d/m/yy", "d/m/yyyy",
+                    "dd/mm/yy", "dd/mm/yyyy", "yyyy-mm-dd", "d-mmm-yy", "dd-mmm-yy")) {
+                addFormat(format, new SimpleDateFormat("yyyy-MM-dd"));
+            }
+        }
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+            }
+            return plainNumber.format(value);
+        }
+    }
+
+    private static final class RowCollector implements SheetContentsHandler {
+
+        private final RowHandler handler;
+        private final List<String> cells = new ArrayList<>();
+
+        private RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (cells.stream().anyMatch(cell -> cell != null && !cell.isBlank())) {
+                handler.row(rowNum + 1L, new ArrayList<>(cells));
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            // Les cellules vides ne sont pas émises : on complète les colonnes manquantes
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : cells.size();
+            while (cells.size() < column) {
+                cells.add(null);
+            }
+            cells.add(formattedValue);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.wbf.mutuelle.repositories.LoanRepository;
 import com.wbf.mutuelle.repositories.LoanRequestRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +24,7 @@ public class LoanAutoCreationService {
 
     private final LoanRequestRepository loanRequestRepository;
     private final LoanRepository loanRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Vérifie si une demande est entièrement approuvée et crée automatiquement le prêt
@@ -103,6 +105,9 @@ public class LoanAutoCreationService {
         // Marquer la demande comme ayant un prêt créé
         loanRequest.setLoanCreated(true);
         loanRequestRepository.save(loanRequest);
+        if (savedLoan.getMember() != null) {
+            eventPublisher.publishEvent(MemberFinancialChangedEvent.of(savedLoan.getMember().getId()));
+        }
 
         log.info("🎉 Prêt créé avec succès pour le membre: {} - Montant: {} FCFA",
                 loanRequest.getMember().getId(), loanRequest.getRequestAmount());
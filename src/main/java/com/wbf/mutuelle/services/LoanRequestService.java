@@ -1,5 +1,7 @@
 package com.wbf.mutuelle.services;
 
+import com.wbf.mutuelle.dto.CursorPage;
+import com.wbf.mutuelle.dto.KeysetCursor;
 import com.wbf.mutuelle.entities.*;
 import com.wbf.mutuelle.repositories.LoanRequestRepository;
 import com.wbf.mutuelle.repositories.MemberRepository;
@@ -19,6 +21,7 @@ public class LoanRequestService {
     private final MemberService memberService;
     private final LoanAutoCreationService loanAutoCreationService;
     private final TreasurerLoanService treasurerLoanService;
+    private final RepaymentService repaymentService;
 
     public Optional<LoanRequest> getLoanRequestById(Long id) {
         return loanRequestRepository.findById(id);
@@ -32,6 +35,18 @@ public class LoanRequestService {
         return loanRequestRepository.findAllWithMember();
     }
 
+    // Page de demandes triées par date de demande puis id décroissants ; total compté sur demande
+    public CursorPage<LoanRequest> getLoanRequestsPage(String status, Long memberId, String cursor, Integer limit, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int size = CursorPage.clampLimit(limit);
+
+        List<LoanRequest> fetched = loanRequestRepository.findPage(status, memberId,
+                after != null ? after.date() : null, after != null ? after.id() : null, size + 1);
+        Long total = includeTotal ? loanRequestRepository.countPage(status, memberId) : null;
+
+        return CursorPage.of(fetched, size, request -> new KeysetCursor(request.getRequestDate(), request.getId()), total);
+    }
+
     @Transactional
     public LoanRequest createLoanRequest(LoanRequest loanRequest, String memberEmail) {
         Member member = memberRepository.findByEmail(memberEmail)
@@ -419,26 +434,12 @@ public class LoanRequestService {
         return loanRequest.getRepayments();
     }
 
+    @Transactional
     public void generateRepaymentScheduleForLoanRequest(Long id) {
         LoanRequest loanRequest = loanRequestRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Demande de prêt non trouvée"));
 
-        List<Repayment> repayments = new ArrayList<>();
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(new Date());
-
-        for (int i = 1; i <= loanRequest.getDuration(); i++) {
-            calendar.add(Calendar.MONTH, 1);
-            Repayment repayment = new Repayment();
-            repayment.setLoanRequest(loanRequest);
-            repayment.setAmount(null);
-            repayment.setDueDate(calendar.getTime());
-            repayment.setAmount(null);
-            repayments.add(repayment);
-        }
-
-        loanRequest.setRepayments(repayments);
-        loanRequestRepository.save(loanRequest);
+        repaymentService.generateRepaymentSchedule(loanRequest);
     }
 
     // ✅ NOUVELLE MÉTHODE : Forcer la création d'un prêt (pour administration)
@@ -1,5 +1,7 @@
 package com.wbf.mutuelle.services;
 
+import com.wbf.mutuelle.dto.CursorPage;
+import com.wbf.mutuelle.dto.KeysetCursor;
 import com.wbf.mutuelle.entities.Loan;
 import com.wbf.mutuelle.entities.LoanRequest;
 import com.wbf.mutuelle.entities.Member;
@@ -8,6 +10,7 @@ import com.wbf.mutuelle.repositories.LoanRequestRepository;
 import com.wbf.mutuelle.repositories.MemberRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +30,7 @@ public class LoanService {
     private final LoanRepository loanRepository;
     private final MemberRepository memberRepository;
     private final LoanRequestRepository loanRequestRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public Loan createLoanFromRequest(Long loanRequestId) {
@@ -72,6 +76,7 @@ public class LoanService {
         loan.setIsRepaid(false);
 
         Loan savedLoan = loanRepository.save(loan);
+        publishFinancialChange(savedLoan);
         log.info("Prêt créé avec succès pour le membre: {}", loanRequest.getMember().getId());
 
         return savedLoan;
@@ -81,6 +86,19 @@ public class LoanService {
         return loanRepository.findAll();
     }
 
+    // Page de prêts triés par date de début puis id décroissants ; total compté sur demande
+    @Transactional(readOnly = true)
+    public CursorPage<Loan> getLoansPage(Boolean isRepaid, Long memberId, String cursor, Integer limit, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int size = CursorPage.clampLimit(limit);
+
+        List<Loan> fetched = loanRepository.findPage(isRepaid, memberId,
+                after != null ? after.date() : null, after != null ? after.id() : null, size + 1);
+        Long total = includeTotal ? loanRepository.countPage(isRepaid, memberId) : null;
+
+        return CursorPage.of(fetched, size, loan -> new KeysetCursor(loan.getBeginDate(), loan.getId()), total);
+    }
+
     public Optional<Loan> getLoanById(Long id) {
         return loanRepository.findById(id);
     }
@@ -116,6 +134,7 @@ public class LoanService {
             loan.getLoanRequest().setIsRepaid(true);
         }
 
+        publishFinancialChange(loan);
         return loanRepository.save(loan);
     }
 
@@ -150,15 +169,22 @@ public class LoanService {
             loan.setIsRepaid(loanDetails.getIsRepaid());
         }
 
+        publishFinancialChange(loan);
         return loanRepository.save(loan);
     }
 
     @Transactional
     public void deleteLoan(Long loanId) {
-        if (!loanRepository.existsById(loanId)) {
-            throw new RuntimeException("Prêt non trouvé avec l'ID: " + loanId);
+        Loan loan = loanRepository.findById(loanId)
+                .orElseThrow(() -> new RuntimeException("Prêt non trouvé avec l'ID: " + loanId));
+        publishFinancialChange(loan);
+        loanRepository.delete(loan);
+    }
+
+    private void publishFinancialChange(Loan loan) {
+        if (loan.getMember() != null) {
+            eventPublisher.publishEvent(MemberFinancialChangedEvent.of(loan.getMember().getId()));
         }
-        loanRepository.deleteById(loanId);
     }
 
     private BigDecimal calculateRepaymentAmount(BigDecimal amount, BigDecimal interestRate, Integer duration) {
@@ -0,0 +1,8 @@
+package com.wbf.mutuelle.services;
+
+/**
+ * Publié après une écriture qui déplace la date à partir de laquelle un membre doit cotiser
+ * (dernière souscription) ou qui le supprime.
+ */
+public record MemberBaselineChangedEvent(Long memberId) {
+}
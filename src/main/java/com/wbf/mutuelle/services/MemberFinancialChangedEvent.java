@@ -0,0 +1,28 @@
+package com.wbf.mutuelle.services;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Publié après une écriture qui modifie la situation financière de membres
+ * (cotisation, remboursement, prêt).
+ */
+public record MemberFinancialChangedEvent(Set<Long> memberIds) {
+
+    public static MemberFinancialChangedEvent of(Long... memberIds) {
+        return of(Arrays.asList(memberIds));
+    }
+
+    public static MemberFinancialChangedEvent of(Collection<Long> memberIds) {
+        return new MemberFinancialChangedEvent(memberIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet()));
+    }
+
+    public boolean isEmpty() {
+        return memberIds.isEmpty();
+    }
+}
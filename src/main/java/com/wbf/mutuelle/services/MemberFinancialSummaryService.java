@@ -0,0 +1,130 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.entities.MemberFinancialSummary;
+import com.wbf.mutuelle.entities.Repayment;
+import com.wbf.mutuelle.repositories.ContributionRepository;
+import com.wbf.mutuelle.repositories.LoanRepository;
+import com.wbf.mutuelle.repositories.MemberFinancialSummaryRepository;
+import com.wbf.mutuelle.repositories.MemberRepository;
+import com.wbf.mutuelle.repositories.RepaymentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tient à jour la table member_financial_summary : les agrégats d'un membre sont recalculés
+ * une fois l'écriture validée, et la lecture se fait par clé primaire.
+ */
+@Slf4j
+@Service
+public class MemberFinancialSummaryService {
+
+    private final MemberFinancialSummaryRepository summaryRepository;
+    private final MemberRepository memberRepository;
+    private final ContributionRepository contributionRepository;
+    private final RepaymentRepository repaymentRepository;
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate requiresNew;
+
+    public MemberFinancialSummaryService(MemberFinancialSummaryRepository summaryRepository,
+                                         MemberRepository memberRepository,
+                                         ContributionRepository contributionRepository,
+                                         RepaymentRepository repaymentRepository,
+                                         LoanRepository loanRepository,
+                                         PlatformTransactionManager transactionManager) {
+        this.summaryRepository = summaryRepository;
+        this.memberRepository = memberRepository;
+        this.contributionRepository = contributionRepository;
+        this.repaymentRepository = repaymentRepository;
+        this.loanRepository = loanRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Recalcul après validation de l'écriture, une transaction par membre : un échec ici
+     * n'annule pas l'écriture, le résumé sera recalculé à la prochaine modification.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberFinancialChanged(MemberFinancialChangedEvent event) {
+        for (Long memberId : event.memberIds()) {
+            try {
+                requiresNew.executeWithoutResult(status -> refresh(memberId));
+            } catch (Exception e) {
+                log.error("Erreur lors de la mise à jour du résumé financier du membre ID: {}", memberId, e);
+            }
+        }
+    }
+
+    /**
+     * Résumé d'un membre ; construit à la première lecture s'il n'existe pas encore.
+     */
+    @Transactional
+    public Optional<MemberFinancialSummary> getSummary(Long memberId) {
+        Optional<MemberFinancialSummary> summary = summaryRepository.findById(memberId);
+        if (summary.isPresent()) {
+            return summary;
+        }
+        return Optional.ofNullable(refresh(memberId));
+    }
+
+    /**
+     * Supprime les résumés de membres touchés par une écriture en masse (import) :
+     * ils seront reconstruits à la prochaine lecture au lieu d'un recalcul par membre.
+     */
+    @Transactional
+    public void evict(Collection<Long> memberIds) {
+        if (!memberIds.isEmpty()) {
+            summaryRepository.deleteAllByIdInBatch(memberIds);
+        }
+    }
+
+    /**
+     * Recalcule le résumé depuis les tables sources. Supprime la ligne si le membre n'existe plus.
+     */
+    @Transactional
+    public MemberFinancialSummary refresh(Long memberId) {
+        if (!memberRepository.existsById(memberId)) {
+            summaryRepository.findById(memberId).ifPresent(summaryRepository::delete);
+            return null;
+        }
+
+        MemberFinancialSummary summary = summaryRepository.findById(memberId)
+                .orElseGet(() -> new MemberFinancialSummary(memberId));
+
+        summary.setTotalContributions(orZero(contributionRepository.getTotalAmountByMember(memberId)));
+        summary.setContributionsCount(orZero(contributionRepository.countContributionsByMemberId(memberId)));
+        summary.setTotalRepaid(orZero(repaymentRepository.getTotalRepaidAmountByMember(memberId)));
+        summary.setPendingAmount(orZero(repaymentRepository.getPendingAmountByMember(memberId)));
+
+        List<Repayment> nextDue = repaymentRepository.findNextDueRepaymentsByMember(memberId, PageRequest.of(0, 1));
+        Repayment next = nextDue.isEmpty() ? null : nextDue.get(0);
+        summary.setNextDueRepaymentId(next != null ? next.getId() : null);
+        summary.setNextDueDate(next != null ? next.getDueDate() : null);
+        summary.setNextDueAmount(next != null ? next.getAmount() : null);
+
+        summary.setActiveLoansCount(orZero(loanRepository.countByMemberIdAndIsRepaid(memberId, false)));
+        summary.setUpdatedAt(Instant.now());
+
+        return summaryRepository.save(summary);
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static Long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
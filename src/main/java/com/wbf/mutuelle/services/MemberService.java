@@ -1,15 +1,29 @@
 package com.wbf.mutuelle.services;
 
+import com.wbf.mutuelle.configuration.AuthenticatedPrincipalCache;
+import com.wbf.mutuelle.configuration.CacheConfig;
+import com.wbf.mutuelle.dto.CursorPage;
+import com.wbf.mutuelle.dto.MemberDirectoryEntry;
+import com.wbf.mutuelle.dto.MemberProfileResponse;
+import com.wbf.mutuelle.dto.MemberSearchCursor;
 import com.wbf.mutuelle.entities.LoanRequest;
 import com.wbf.mutuelle.entities.Member;
+import com.wbf.mutuelle.entities.Role;
 import com.wbf.mutuelle.repositories.LoanRequestRepository;
 import com.wbf.mutuelle.repositories.MemberRepository;
 import jakarta.transaction.Transactional;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -18,10 +32,20 @@ public class MemberService {
 
     private final MemberRepository memberRepository;
     private final LoanRequestRepository loanRequestRepository;
-
-    public MemberService(MemberRepository memberRepository, LoanRequestRepository loanRequestRepository) {
+    private final AuthenticatedPrincipalCache principalCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+
+    public MemberService(MemberRepository memberRepository, LoanRequestRepository loanRequestRepository,
+                         AuthenticatedPrincipalCache principalCache, TokenRevocationService tokenRevocationService,
+                         ApplicationEventPublisher eventPublisher, CacheManager cacheManager) {
         this.memberRepository = memberRepository;
         this.loanRequestRepository = loanRequestRepository;
+        this.principalCache = principalCache;
+        this.tokenRevocationService = tokenRevocationService;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
     }
 
     public List<Member> getAllMembers(){
@@ -36,10 +60,39 @@ public class MemberService {
         return memberRepository.findByEmail(email);
     }
 
+    /**
+     * Profil du membre connecté, en cache par email (en minuscules). Le cache est vidé à chaque
+     * modification du profil, de la photo ou du statut de cotisation / d'endettement.
+     */
+    @Cacheable(cacheNames = CacheConfig.MEMBER_PROFILES, key = "#email.toLowerCase()", unless = "#result == null")
+    public Optional<MemberProfileResponse> getProfile(String email) {
+        return memberRepository.findByEmail(email).map(MemberProfileResponse::from);
+    }
+
+    /**
+     * Annuaire des membres : préfixe ou correspondance approximative sur nom, prénom, email,
+     * téléphone et NPI, trié par nom puis prénom et paginé par curseur.
+     */
+    public CursorPage<MemberDirectoryEntry> searchMembers(String query, String cursor, Integer limit, boolean includeTotal) {
+        MemberSearchCursor after = MemberSearchCursor.decode(cursor);
+        int size = CursorPage.clampLimit(limit);
+
+        String q = query != null && !query.isBlank() ? query.trim().toLowerCase() : null;
+        String prefix = q != null ? q.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%" : null;
+
+        List<MemberDirectoryEntry> fetched = memberRepository.searchDirectory(q, prefix,
+                after != null ? after.sortKey() : null, after != null ? after.id() : null, size + 1);
+        Long total = includeTotal ? memberRepository.countDirectory(q, prefix) : null;
+
+        return CursorPage.ofTokens(fetched, size, entry -> new MemberSearchCursor(entry.getSortKey(), entry.getId()).encode(), total);
+    }
+
     public Member updateProfileImage(Long memberId, String filename) {
         Member member = memberRepository.findById(memberId).orElseThrow(() -> new RuntimeException("Member not found"));
         member.setProfileImage(filename);
-        return memberRepository.save(member);
+        Member savedMember = memberRepository.save(member);
+        evictProfile(savedMember.getEmail());
+        return savedMember;
     }
 
     public Member createMember(Member member){
@@ -49,8 +102,18 @@ public class MemberService {
         return memberRepository.save(member);
     }
 
+    /**
+     * memberDetails porte les nouvelles valeurs et ne doit pas être l'instance gérée du membre :
+     * l'ancien email et l'ancien rôle sont lus sur l'entité avant modification pour révoquer
+     * les tokens et vider les caches de l'ancienne identité.
+     */
     public Member updateMember(Long id, Member memberDetails){
         Member member = memberRepository.findById(id).orElseThrow();
+        if (member == memberDetails) {
+            throw new IllegalArgumentException("Les nouvelles valeurs doivent être passées dans un objet distinct du membre géré");
+        }
+        String previousEmail = member.getEmail();
+        Role previousRole = member.getRole();
         member.setName(memberDetails.getName());
         member.setFirstName(memberDetails.getFirstName());
         member.setName(memberDetails.getName());
@@ -60,21 +123,54 @@ public class MemberService {
         member.setPhone(memberDetails.getPhone());
         member.setRole(memberDetails.getRole());
 
-        return memberRepository.save(member);
+        Member savedMember = memberRepository.save(member);
+
+        // Email, mot de passe ou rôle ont pu changer : les principals en cache sont périmés
+        principalCache.evictByEmail(previousEmail);
+        principalCache.evictByEmail(savedMember.getEmail());
+        evictProfile(previousEmail);
+        evictProfile(savedMember.getEmail());
+
+        // Les tokens existants portent l'ancien rôle / l'ancien email : ils ne doivent plus être acceptés
+        if (previousRole != savedMember.getRole() || !Objects.equals(previousEmail, savedMember.getEmail())) {
+            tokenRevocationService.revokeTokensOf(previousEmail);
+        }
+
+        return savedMember;
     }
 
     public void deleteMember(Long id){
+        memberRepository.findById(id).ifPresent(member -> {
+            principalCache.evictByEmail(member.getEmail());
+            evictProfile(member.getEmail());
+            tokenRevocationService.revokeTokensOf(member.getEmail());
+        });
         memberRepository.deleteById(id);
+        // Supprime le résumé financier du membre
+        eventPublisher.publishEvent(MemberFinancialChangedEvent.of(id));
+        eventPublisher.publishEvent(new MemberBaselineChangedEvent(id));
     }
 
+    /**
+     * Statut fixé par un administrateur. Avec manual, la synchronisation automatique
+     * ne le modifie plus ; sans, le membre lui est rendu.
+     */
     @Transactional
-    public Member updateSubscriptionStatus(Long memberId, Boolean isRegular, LocalDate subscriptionDate) {
+    public Member updateSubscriptionStatus(Long memberId, Boolean isRegular, LocalDate subscriptionDate, boolean manual) {
         Member member = memberRepository.findById(memberId)
                 .orElseThrow(() -> new RuntimeException("Membre non trouvé"));
+        boolean baselineChanged = !Objects.equals(member.getLastSubscriptionDate(), subscriptionDate);
         member.setIsRegular(isRegular);
         member.setLastSubscriptionDate(subscriptionDate);
         member.setSubscriptionStatus(isRegular ? "ACTIVE" : "EXPIRED");
-        return memberRepository.save(member);
+        member.setSubscriptionStatusManual(manual);
+        evictProfile(member.getEmail());
+        Member saved = memberRepository.save(member);
+        // Les périodes dues dépendent de la dernière souscription
+        if (baselineChanged) {
+            eventPublisher.publishEvent(new MemberBaselineChangedEvent(memberId));
+        }
+        return saved;
     }
 
     @Transactional
@@ -82,6 +178,7 @@ public class MemberService {
         Member member = memberRepository.findById(memberId)
                 .orElseThrow(() -> new RuntimeException("Membre non trouvé"));
         member.setHasPreviousDebt(hasDebt);
+        evictProfile(member.getEmail());
         return memberRepository.save(member);
     }
 
@@ -126,6 +223,26 @@ public class MemberService {
 
     
 
+    // Après le commit quand une transaction est en cours : une lecture concurrente
+    // ne peut pas remettre en cache le profil d'avant la modification
+    private void evictProfile(String email) {
+        Cache cache = cacheManager.getCache(CacheConfig.MEMBER_PROFILES);
+        if (email == null || cache == null) {
+            return;
+        }
+        String key = email.toLowerCase();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(key);
+                }
+            });
+        } else {
+            cache.evict(key);
+        }
+    }
+
     public String getUserRole(Member member) {
         if (member.isPresident()) return "PRESIDENT";
         if (member.isSecretary()) return "SECRETARY";
@@ -1,27 +1,53 @@
 package com.wbf.mutuelle.services;
 
+import com.wbf.mutuelle.dto.CursorPage;
+import com.wbf.mutuelle.dto.KeysetCursor;
+import com.wbf.mutuelle.dto.NotificationSearchHit;
+import com.wbf.mutuelle.dto.OverdueRepaymentView;
 import com.wbf.mutuelle.entities.Notification;
 import com.wbf.mutuelle.exceptions.NotificationNotFoundException;
 import com.wbf.mutuelle.repositories.NotificationRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
+    // "fulltext" (PostgreSQL, colonne msg_tsv) ou "like" (profil local / base sans la colonne)
+    private final boolean fullTextSearch;
+
+    public NotificationService(NotificationRepository notificationRepository,
+                               @Value("${notification.search.mode:fulltext}") String searchMode) {
+        this.notificationRepository = notificationRepository;
+        this.fullTextSearch = !"like".equalsIgnoreCase(searchMode);
+    }
 
     public List<Notification> getAllNotifications() {
         log.info("Récupération de toutes les notifications");
         return notificationRepository.findAll();
     }
 
+    // Page de notifications triées par date d'envoi puis id décroissants ; total compté sur demande
+    public CursorPage<Notification> getNotificationsPage(String receiver, String role, String cursor, Integer limit, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int size = CursorPage.clampLimit(limit);
+
+        List<Notification> fetched = notificationRepository.findPage(receiver, role,
+                after != null ? after.date() : null, after != null ? after.id() : null, size + 1);
+        Long total = includeTotal ? notificationRepository.countPage(receiver, role) : null;
+
+        return CursorPage.of(fetched, size, notification -> new KeysetCursor(notification.getSend_date(), notification.getId()), total);
+    }
+
     public Notification getNotificationById(Long id) {
         log.info("Récupération de la notification avec l'id: {}", id);
         return notificationRepository.findById(id)
@@ -134,9 +160,24 @@ public class NotificationService {
         return notificationRepository.findNotificationsBetweenDates(startDate, endDate);
     }
 
-    public List<Notification> searchNotificationsByKeyword(String keyword) {
+    /**
+     * Recherche dans le message des notifications, résultats les plus pertinents d'abord puis
+     * les plus récents. En mode plein texte, les mots sont racinisés (configuration french) :
+     * « cotisations » trouve « cotisation ».
+     */
+    public Page<NotificationSearchHit> searchNotifications(String keyword, String receiver, String role, int page, int size) {
+        if (keyword == null || keyword.isBlank()) {
+            throw new IllegalArgumentException("Le mot-clé est obligatoire");
+        }
         log.info("Recherche de notifications avec le mot-clé: {}", keyword);
-        return notificationRepository.findByMessageContaining(keyword);
+        PageRequest pageable = PageRequest.of(Math.max(page, 0), CursorPage.clampLimit(size));
+
+        if (fullTextSearch) {
+            return notificationRepository.searchFullText(keyword.trim(), receiver, role, pageable);
+        }
+        String pattern = "%" + keyword.trim().toLowerCase()
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return notificationRepository.searchLike(pattern, receiver, role, pageable);
     }
 
     public Long countNotificationsByReceiver(String receiver) {
@@ -161,4 +202,29 @@ public class NotificationService {
 
     public void notifyRepaymentStatusChange(String email, String overdue, String s) {
     }
+
+    /**
+     * Notifie en un seul lot les membres dont les échéances viennent de passer en retard.
+     * Retourne le nombre de notifications créées.
+     */
+    public int notifyRepaymentsOverdue(List<OverdueRepaymentView> overdueRepayments) {
+        Date now = new Date();
+        List<Notification> notifications = new ArrayList<>(overdueRepayments.size());
+
+        for (OverdueRepaymentView repayment : overdueRepayments) {
+            if (repayment.getEmail() == null) {
+                continue;
+            }
+            Notification notification = new Notification();
+            notification.setMsg("Remboursement en retard: " + repayment.getAmount());
+            notification.setReceiver(repayment.getEmail());
+            notification.setSend_date(now);
+            notification.setRole("MEMBER");
+            notifications.add(notification);
+        }
+
+        notificationRepository.saveAll(notifications);
+        log.info("{} notification(s) de retard de remboursement créée(s)", notifications.size());
+        return notifications.size();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.dto.OverdueMarkingReport;
+import com.wbf.mutuelle.entities.JobCheckpoint;
+import com.wbf.mutuelle.repositories.JobCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Détection planifiée des échéances en retard. Chaque exécution ne traite que les échéances
+ * dont la date est passée depuis le dernier point de reprise (table job_checkpoint) ;
+ * un verrou en base garantit qu'une seule instance exécute le traitement.
+ */
+@Slf4j
+@Service
+public class OverdueDetectionScheduler {
+
+    static final String JOB_NAME = "overdue-detection";
+
+    private final RepaymentService repaymentService;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final boolean enabled;
+    private final Duration lockAtMostFor;
+
+    private final Timer runTimer;
+    private final Counter successCounter;
+    private final Counter failureCounter;
+    private final Counter skippedCounter;
+    private final Counter rowsCounter;
+    private final Counter notificationsCounter;
+    private final AtomicLong lastRunRows = new AtomicLong();
+    private final AtomicLong lastSuccessEpochSeconds = new AtomicLong();
+
+    public OverdueDetectionScheduler(RepaymentService repaymentService,
+                                     JobCheckpointRepository jobCheckpointRepository,
+                                     SchedulerLockService schedulerLockService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${repayment.overdue.scheduler.enabled:true}") boolean enabled,
+                                     @Value("${repayment.overdue.scheduler.lock-at-most-for:PT30M}") Duration lockAtMostFor) {
+        this.repaymentService = repaymentService;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.enabled = enabled;
+        this.lockAtMostFor = lockAtMostFor;
+
+        this.runTimer = Timer.builder("overdue.detection.duration")
+                .description("Durée d'une exécution de la détection des retards")
+                .register(meterRegistry);
+        this.successCounter = meterRegistry.counter("overdue.detection.runs", "outcome", "success");
+        this.failureCounter = meterRegistry.counter("overdue.detection.runs", "outcome", "failure");
+        this.skippedCounter = meterRegistry.counter("overdue.detection.runs", "outcome", "skipped");
+        this.rowsCounter = meterRegistry.counter("overdue.detection.rows");
+        this.notificationsCounter = meterRegistry.counter("overdue.detection.notifications");
+        meterRegistry.gauge("overdue.detection.last.rows", lastRunRows);
+        meterRegistry.gauge("overdue.detection.last.success", lastSuccessEpochSeconds);
+    }
+
+    @Scheduled(cron = "${repayment.overdue.scheduler.cron:0 5 * * * *}")
+    public void detectOverdueRepayments() {
+        if (!enabled) {
+            return;
+        }
+        if (!schedulerLockService.tryLock(JOB_NAME, lockAtMostFor)) {
+            skippedCounter.increment();
+            return;
+        }
+
+        try {
+            runTimer.record(this::runIncrementally);
+        } finally {
+            schedulerLockService.unlock(JOB_NAME);
+        }
+    }
+
+    private void runIncrementally() {
+        try {
+            JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME)
+                    .orElseGet(() -> new JobCheckpoint(JOB_NAME));
+
+            Date now = new Date();
+            LocalDate today = LocalDate.now();
+            LocalDate previousCheckpoint = checkpoint.getCheckpointDate();
+            Date dueFrom = previousCheckpoint != null ? toDate(previousCheckpoint) : null;
+
+            OverdueMarkingReport report = repaymentService.markOverdueRepayments(dueFrom, now);
+
+            // Le point de reprise n'avance qu'une fois tous les lots traités
+            checkpoint.setCheckpointDate(today);
+            checkpoint.setUpdatedAt(Instant.now());
+            jobCheckpointRepository.save(checkpoint);
+
+            rowsCounter.increment(report.getRowsProcessed());
+            notificationsCounter.increment(report.getNotificationsCreated());
+            lastRunRows.set(report.getRowsProcessed());
+            lastSuccessEpochSeconds.set(Instant.now().getEpochSecond());
+            successCounter.increment();
+            log.info("Détection des retards depuis {} : {} échéance(s) en {} ms",
+                    previousCheckpoint != null ? previousCheckpoint : "l'origine", report.getRowsProcessed(), report.getElapsedMs());
+        } catch (Exception e) {
+            failureCounter.increment();
+            log.error("Erreur lors de la détection planifiée des retards", e);
+        }
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
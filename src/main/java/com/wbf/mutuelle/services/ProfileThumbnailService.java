@@ -0,0 +1,248 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.services.FileStorageService.StoredFileHandle;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Miniatures des photos de profil (64 et 256 px par défaut) : générées en arrière-plan sur un
+ * pool borné après le téléversement, rangées à côté de l'original (<fichier>.<taille>.jpg).
+ * Tant qu'une miniature n'existe pas, l'original est servi sans cache longue durée et la
+ * génération est relancée. Un original illisible est marqué (<fichier>.failed) et n'est plus
+ * décodé ; un fichier qui n'est pas une image n'est jamais décodé.
+ */
+@Slf4j
+@Service
+public class ProfileThumbnailService {
+
+    private static final String FORMAT = "jpg";
+    private static final String FAILED_MARKER = ".failed";
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final List<Integer> sizes;
+    private final ThreadPoolExecutor executor;
+    // Originaux en cours de traitement : une seule génération à la fois par fichier
+    private final Set<Path> inProgress = ConcurrentHashMap.newKeySet();
+
+    public ProfileThumbnailService(@Value("${profile.thumbnail.sizes:64,256}") List<Integer> sizes,
+                                   @Value("${profile.thumbnail.max-concurrent:2}") int maxConcurrent,
+                                   @Value("${profile.thumbnail.queue-capacity:50}") int queueCapacity) {
+        this.sizes = sizes.stream().sorted().toList();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "profile-thumbnail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    /**
+     * Planifie la génération des miniatures manquantes. File pleine : la génération
+     * sera retentée à la prochaine demande d'une miniature.
+     */
+    public void generateAsync(StoredFileHandle file) {
+        Path original = file.path();
+        if (!isImage(file) || Files.exists(failedMarker(original)) || !inProgress.add(original)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(original);
+                } catch (Exception e) {
+                    log.warn("Impossible de générer les miniatures de {}", original.getFileName(), e);
+                } finally {
+                    inProgress.remove(original);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(original);
+            log.warn("File des miniatures pleine, {} sera traité plus tard", original.getFileName());
+        }
+    }
+
+    /**
+     * Représentation à servir pour la taille demandée : la plus petite miniature couvrant
+     * cette taille, ou l'original si elle dépasse la plus grande miniature.
+     */
+    public StoredFileHandle select(StoredFileHandle original, int requestedSize) {
+        Integer size = sizes.stream().filter(s -> s >= requestedSize).findFirst().orElse(null);
+        // Pas de miniature possible : l'original est la représentation définitive
+        if (size == null || !isImage(original) || Files.exists(failedMarker(original.path()))) {
+            return original;
+        }
+
+        Path variant = variantPath(original.path(), size);
+        try {
+            if (Files.isRegularFile(variant)) {
+                return new StoredFileHandle(original.metadata(), variant, MediaType.IMAGE_JPEG_VALUE,
+                        Files.size(variant), original.metadata().getETag(size + "px"), true);
+            }
+        } catch (IOException e) {
+            log.warn("Miniature {} illisible", variant.getFileName(), e);
+        }
+        generateAsync(original);
+        return original.mutable();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // =============================================
+    // GÉNÉRATION
+    // =============================================
+
+    private void generate(Path original) throws IOException {
+        List<Integer> missing = sizes.stream().filter(size -> !Files.exists(variantPath(original, size))).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        BufferedImage source;
+        try {
+            source = decode(original, missing.get(missing.size() - 1));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image {} illisible, pas de miniature", original.getFileName(), e);
+            source = null;
+        }
+        if (source == null) {
+            // Marqueur : les demandes suivantes servent l'original sans relancer de décodage
+            Path marker = failedMarker(original);
+            if (!Files.exists(marker)) {
+                Files.createFile(marker);
+            }
+            log.debug("{} n'est pas une image lisible, marqué sans miniature", original.getFileName());
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        // Du plus grand au plus petit : chaque miniature est réduite depuis la précédente
+        BufferedImage current = source;
+        for (int i = missing.size() - 1; i >= 0; i--) {
+            current = scale(current, missing.get(i));
+            write(current, variantPath(original, missing.get(i)));
+        }
+        log.debug("Miniatures {} générées pour {} en {} ms", missing, original.getFileName(),
+                System.currentTimeMillis() - start);
+    }
+
+    // Décodage sous-échantillonné : une photo de 24 Mpx n'est jamais décodée en pleine résolution
+    private BufferedImage decode(Path original, int largestSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                // On garde au moins deux fois la taille finale pour la qualité de la réduction
+                int subsampling = Math.max(1, longestSide / (largestSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Réduction par divisions successives par deux (interpolation bilinéaire), sans agrandissement
+    private static BufferedImage scale(BufferedImage source, int size) {
+        int longestSide = Math.max(source.getWidth(), source.getHeight());
+        double ratio = Math.min(1.0, (double) size / longestSide);
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width > targetWidth || height > targetHeight);
+        return current;
+    }
+
+    // JPEG sans transparence : fond blanc
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // Écriture dans un fichier temporaire puis déplacement : une miniature n'est jamais lue à moitié écrite
+    private static void write(BufferedImage image, Path target) throws IOException {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(FORMAT).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(part.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path variantPath(Path original, int size) {
+        return original.resolveSibling(original.getFileName() + "." + size + "." + FORMAT);
+    }
+
+    private static Path failedMarker(Path original) {
+        return original.resolveSibling(original.getFileName() + FAILED_MARKER);
+    }
+
+    private static boolean isImage(StoredFileHandle file) {
+        return file.contentType() != null && file.contentType().startsWith("image/");
+    }
+}
@@ -1,25 +1,41 @@
 package com.wbf.mutuelle.services;
 
+import com.wbf.mutuelle.dto.OverdueMarkingReport;
+import com.wbf.mutuelle.dto.OverdueRepaymentView;
+import com.wbf.mutuelle.dto.RepaymentAllocation;
+import com.wbf.mutuelle.dto.RepaymentProcessingResult;
 import com.wbf.mutuelle.entities.Loan;
 import com.wbf.mutuelle.entities.LoanRequest;
 import com.wbf.mutuelle.entities.Repayment;
 import com.wbf.mutuelle.repositories.RepaymentRepository;
 import com.wbf.mutuelle.repositories.LoanRepository;
 import com.wbf.mutuelle.repositories.LoanRequestRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RepaymentService {
@@ -29,6 +45,14 @@ public class RepaymentService {
     private final LoanRepository loanRepository;
     private final NotificationService notificationService;
     private final ExportService exportService;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Nombre de lignes exportées entre deux vidages du contexte de persistance
+    private static final int EXPORT_CLEAR_INTERVAL = 500;
+    // Taille des lots du marquage des retards
+    private static final int OVERDUE_CHUNK_SIZE = 1000;
 
     // Méthode avec pagination
     public Page<Repayment> getAllRepayments(Pageable pageable) {
@@ -67,6 +91,7 @@ public class RepaymentService {
             }
 
             Repayment saved = repaymentRepository.save(repayment);
+            publishFinancialChange(loanRequest.getMember() != null ? loanRequest.getMember().getId() : null);
 
             // If fully repaid, update loanRequest
             if (getTotalRepaidAmount(loanRequest.getId()).compareTo(loanRequest.getRequestAmount()) >= 0) {
@@ -89,6 +114,7 @@ public class RepaymentService {
             }
 
             Repayment saved = repaymentRepository.save(repayment);
+            publishFinancialChange(loan.getMember() != null ? loan.getMember().getId() : null);
 
             // Update loan status
             loan.getRepayments().add(saved);
@@ -115,30 +141,17 @@ public class RepaymentService {
 
     @Transactional
     public void generateRepaymentSchedule(LoanRequest loanRequest) {
-        BigDecimal loanAmount = loanRequest.getRequestAmount();
-        Integer duration = loanRequest.getDuration(); // en mois
-        BigDecimal monthlyAmount = loanAmount.divide(BigDecimal.valueOf(duration), 2, RoundingMode.HALF_UP);
-
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(new Date()); // Date de début = aujourd'hui
-
-        for (int i = 1; i <= duration; i++) {
-            calendar.add(Calendar.MONTH, 1);
-
-            Repayment repayment = new Repayment();
-            repayment.setAmount(monthlyAmount);
-            repayment.setDueDate(calendar.getTime());
-            repayment.setInstallmentNumber(i);
-            repayment.setTotalInstallments(duration);
-            repayment.setStatus("PENDING");
-            repayment.setLoanRequest(loanRequest);
+        // repayment.loan_id est obligatoire : l'échéancier est rattaché au prêt accordé
+        Loan loan = loanRepository.findByLoanRequestId(loanRequest.getId())
+                .orElseThrow(() -> new RuntimeException("Aucun prêt n'est associé à cette demande"));
 
-            repaymentRepository.save(repayment);
-        }
+        // Tout l'échéancier est inséré en un seul lot
+        repaymentRepository.saveAll(buildSchedule(loanRequest.getRequestAmount(), loanRequest.getDuration(), loan, loanRequest));
+        publishFinancialChange(loan.getMember() != null ? loan.getMember().getId() : null);
     }
 
     @Transactional
-    public Repayment processRepayment(Long repaymentId, BigDecimal amountPaid, String paymentMethod, String transactionReference) {
+    public RepaymentProcessingResult processRepayment(Long repaymentId, BigDecimal amountPaid, String paymentMethod, String transactionReference) {
         Repayment repayment = repaymentRepository.findById(repaymentId)
                 .orElseThrow(() -> new RuntimeException("Remboursement non trouvé"));
 
@@ -146,22 +159,19 @@ public class RepaymentService {
             throw new RuntimeException("Ce remboursement a déjà été traité");
         }
 
+        RepaymentProcessingResult result = new RepaymentProcessingResult();
+
         if (amountPaid.compareTo(repayment.getAmount()) >= 0) {
             repayment.setStatus("PAID");
             repayment.setRepaymentDate(new Date());
             repayment.setPaymentMethod(paymentMethod);
             repayment.setTransactionReference(transactionReference);
 
-            // Si paiement supérieur au montant dû, gérer l'excédent
-            if (amountPaid.compareTo(repayment.getAmount()) > 0) {
-                // Appliquer l'excédent au prochain remboursement en attente
-                if (repayment.getLoanRequest() != null) {
-                    applyOverpayment(repayment.getLoanRequest().getId(),
-                            amountPaid.subtract(repayment.getAmount()));
-                } else if (repayment.getLoan() != null) {
-                    applyOverpaymentForLoan(repayment.getLoan().getId(),
-                            amountPaid.subtract(repayment.getAmount()));
-                }
+            // Si paiement supérieur au montant dû, imputer l'excédent sur les échéances suivantes
+            BigDecimal overpayment = amountPaid.subtract(repayment.getAmount());
+            if (overpayment.compareTo(BigDecimal.ZERO) > 0) {
+                result.setOverpayment(overpayment);
+                allocateOverpayment(repayment, overpayment, result);
             }
         } else {
             throw new RuntimeException("Le montant payé est inférieur au montant dû");
@@ -171,8 +181,10 @@ public class RepaymentService {
 
         // Update associated loan or loan request status
         updateAssociatedEntityStatus(repayment);
+        publishFinancialChange(memberIdOf(repayment));
 
-        return savedRepayment;
+        result.setRepayment(savedRepayment);
+        return result;
     }
 
     @Transactional
@@ -182,23 +194,33 @@ public class RepaymentService {
 
         BigDecimal remaining = loan.calculateRemainingBalance();
         Integer duration = loan.getDuration() != null && loan.getDuration() > 0 ? loan.getDuration() : 1;
-        BigDecimal monthly = remaining.divide(BigDecimal.valueOf(duration), 2, RoundingMode.HALF_UP);
+
+        repaymentRepository.saveAll(buildSchedule(remaining, duration, loan, loan.getLoanRequest()));
+        publishFinancialChange(loan.getMember() != null ? loan.getMember().getId() : null);
+    }
+
+    // Échéances mensuelles à partir du mois prochain, montant réparti à parts égales
+    private List<Repayment> buildSchedule(BigDecimal total, Integer duration, Loan loan, LoanRequest loanRequest) {
+        BigDecimal monthly = total.divide(BigDecimal.valueOf(duration), 2, RoundingMode.HALF_UP);
 
         Calendar calendar = Calendar.getInstance();
-        calendar.setTime(new Date());
+        calendar.setTime(new Date()); // Date de début = aujourd'hui
 
+        List<Repayment> schedule = new ArrayList<>(duration);
         for (int i = 1; i <= duration; i++) {
             calendar.add(Calendar.MONTH, 1);
-            Repayment r = new Repayment();
-            r.setAmount(monthly);
-            r.setDueDate(calendar.getTime());
-            r.setInstallmentNumber(i);
-            r.setTotalInstallments(duration);
-            r.setStatus("PENDING");
-            r.setLoan(loan);
-            r.setLoanRequest(loan.getLoanRequest());
-            repaymentRepository.save(r);
+
+            Repayment repayment = new Repayment();
+            repayment.setAmount(monthly);
+            repayment.setDueDate(calendar.getTime());
+            repayment.setInstallmentNumber(i);
+            repayment.setTotalInstallments(duration);
+            repayment.setStatus("PENDING");
+            repayment.setLoan(loan);
+            repayment.setLoanRequest(loanRequest);
+            schedule.add(repayment);
         }
+        return schedule;
     }
 
     @Transactional
@@ -221,6 +243,7 @@ public class RepaymentService {
         loan.getRepayments().add(repayment);
         loan.updateRepaymentStatus();
         loanRepository.save(loan);
+        publishFinancialChange(loan.getMember() != null ? loan.getMember().getId() : null);
 
         if (Boolean.TRUE.equals(loan.getIsRepaid())) {
             if (loan.getLoanRequest() != null) {
@@ -234,53 +257,58 @@ public class RepaymentService {
         }
     }
 
-    private void applyOverpayment(Long loanRequestId, BigDecimal overpayment) {
-        // Trouver le prochain remboursement en attente
-        Optional<Repayment> nextRepayment = repaymentRepository
-                .findFirstByLoanRequestIdAndStatusOrderByDueDateAsc(loanRequestId, "PENDING");
-
-        if (nextRepayment.isPresent()) {
-            Repayment repayment = nextRepayment.get();
-            repayment.setAmount(repayment.getAmount().subtract(overpayment));
-
-            if (repayment.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-                repayment.setStatus("PAID");
-                repayment.setRepaymentDate(new Date());
-
-                // Réappliquer l'excédent restant
-                BigDecimal remainingOverpayment = repayment.getAmount().abs();
-                if (remainingOverpayment.compareTo(BigDecimal.ZERO) > 0) {
-                    applyOverpayment(loanRequestId, remainingOverpayment);
-                }
-            }
-
-            repaymentRepository.save(repayment);
+    /**
+     * Impute un excédent sur les échéances en attente, de la plus ancienne à la plus récente.
+     * Les échéances sont chargées en une requête, l'imputation se fait en mémoire
+     * et toutes les modifications sont écrites en un seul lot.
+     */
+    private void allocateOverpayment(Repayment paidRepayment, BigDecimal overpayment, RepaymentProcessingResult result) {
+        List<Repayment> pending;
+        if (paidRepayment.getLoanRequest() != null) {
+            pending = repaymentRepository.findByLoanRequestIdAndStatusOrdered(paidRepayment.getLoanRequest().getId(), "PENDING");
+        } else if (paidRepayment.getLoan() != null) {
+            pending = repaymentRepository.findByLoanIdAndStatusOrdered(paidRepayment.getLoan().getId(), "PENDING");
+        } else {
+            result.setUnallocatedAmount(overpayment);
+            return;
         }
-    }
 
-    private void applyOverpaymentForLoan(Long loanId, BigDecimal overpayment) {
-        Optional<Repayment> nextRepayment = repaymentRepository
-                .findFirstByLoanIdAndStatusOrderByDueDateAsc(loanId, "PENDING");
+        BigDecimal remaining = overpayment;
+        Date now = new Date();
+        List<Repayment> changed = new ArrayList<>();
 
-        if (nextRepayment.isPresent()) {
-            Repayment repayment = nextRepayment.get();
-            BigDecimal newAmount = repayment.getAmount().subtract(overpayment);
-            // If overpayment covers this repayment
-            if (newAmount.compareTo(BigDecimal.ZERO) <= 0) {
-                repayment.setStatus("PAID");
-                repayment.setRepaymentDate(new Date());
+        for (Repayment installment : pending) {
+            if (remaining.compareTo(BigDecimal.ZERO) <= 0) {
+                break;
+            }
+            if (installment.getId().equals(paidRepayment.getId()) || installment.getAmount() == null) {
+                continue;
+            }
 
-                // Save and propagate remaining overpayment
-                repaymentRepository.save(repayment);
-                BigDecimal remainingOver = overpayment.subtract(repayment.getAmount());
-                if (remainingOver.compareTo(BigDecimal.ZERO) > 0) {
-                    applyOverpaymentForLoan(loanId, remainingOver);
-                }
+            BigDecimal applied;
+            if (remaining.compareTo(installment.getAmount()) >= 0) {
+                // L'excédent couvre toute l'échéance
+                applied = installment.getAmount();
+                installment.setStatus("PAID");
+                installment.setRepaymentDate(now);
             } else {
-                repayment.setAmount(newAmount);
-                repaymentRepository.save(repayment);
+                applied = remaining;
+                installment.setAmount(installment.getAmount().subtract(remaining));
             }
+            remaining = remaining.subtract(applied);
+            changed.add(installment);
+
+            result.getAllocations().add(new RepaymentAllocation(
+                    installment.getId(),
+                    installment.getInstallmentNumber(),
+                    installment.getDueDate(),
+                    applied,
+                    "PAID".equals(installment.getStatus()) ? BigDecimal.ZERO : installment.getAmount(),
+                    installment.getStatus()));
         }
+
+        repaymentRepository.saveAll(changed);
+        result.setUnallocatedAmount(remaining);
     }
 
     private void updateAssociatedEntityStatus(Repayment repayment) {
@@ -322,11 +350,33 @@ public class RepaymentService {
         repayment.setPaymentMethod(repaymentDetails.getPaymentMethod());
         repayment.setTransactionReference(repaymentDetails.getTransactionReference());
 
-        return repaymentRepository.save(repayment);
+        Repayment saved = repaymentRepository.save(repayment);
+        publishFinancialChange(memberIdOf(saved));
+        return saved;
     }
 
     public void deleteRepayment(Long id) {
-        repaymentRepository.deleteById(id);
+        repaymentRepository.findById(id).ifPresent(repayment -> {
+            repaymentRepository.delete(repayment);
+            publishFinancialChange(memberIdOf(repayment));
+        });
+    }
+
+    // Membre concerné par une échéance : celui du prêt, à défaut celui de la demande
+    private Long memberIdOf(Repayment repayment) {
+        if (repayment.getLoan() != null && repayment.getLoan().getMember() != null) {
+            return repayment.getLoan().getMember().getId();
+        }
+        if (repayment.getLoanRequest() != null && repayment.getLoanRequest().getMember() != null) {
+            return repayment.getLoanRequest().getMember().getId();
+        }
+        return null;
+    }
+
+    private void publishFinancialChange(Long memberId) {
+        if (memberId != null) {
+            eventPublisher.publishEvent(MemberFinancialChangedEvent.of(memberId));
+        }
     }
 
     public List<Repayment> getRepaymentHistory(List<String> statuses, Long memberId) {
@@ -376,6 +426,35 @@ public class RepaymentService {
         }
     }
 
+    /**
+     * Exporte l'historique en flux vers la sortie : lecture par curseur et vidage périodique
+     * du contexte de persistance, la mémoire reste constante quel que soit le nombre de lignes.
+     */
+    @Transactional(readOnly = true)
+    public void exportRepaymentHistory(List<String> statuses, Long memberId, String format, OutputStream out) throws IOException {
+        boolean allStatuses = statuses == null || statuses.isEmpty();
+        List<String> statusFilter = allStatuses ? List.of("") : statuses;
+
+        try (Stream<Repayment> repayments = clearPeriodically(
+                repaymentRepository.streamRepaymentHistory(statusFilter, allStatuses, memberId))) {
+            switch (format) {
+                case "pdf" -> exportService.writePdf(repayments, "Historique des Remboursements", out);
+                case "excel" -> exportService.writeExcel(repayments, "Historique des Remboursements", out);
+                case "csv" -> exportService.writeCsv(repayments, out);
+                default -> throw new IllegalArgumentException("Format d'export non supporté: " + format);
+            }
+        }
+    }
+
+    private Stream<Repayment> clearPeriodically(Stream<Repayment> repayments) {
+        AtomicLong count = new AtomicLong();
+        return repayments.peek(repayment -> {
+            if (count.incrementAndGet() % EXPORT_CLEAR_INTERVAL == 0) {
+                entityManager.clear();
+            }
+        });
+    }
+
     // Méthodes supplémentaires utiles
     public List<Repayment> getOverdueRepayments() {
         return repaymentRepository.findByStatusAndDueDateBefore("PENDING", new Date());
@@ -389,28 +468,53 @@ public class RepaymentService {
         return repaymentRepository.findByStatus(status);
     }
 
-    @Transactional
-    public void markOverdueRepayments() {
-        List<Repayment> overdueRepayments = repaymentRepository.findByStatusAndDueDateBefore("PENDING", new Date());
-        for (Repayment repayment : overdueRepayments) {
-            repayment.setStatus("OVERDUE");
-            repaymentRepository.save(repayment);
-
-            // Notifier le membre
-            if (repayment.getLoanRequest() != null && repayment.getLoanRequest().getMember() != null) {
-                notificationService.notifyRepaymentStatusChange(
-                        repayment.getLoanRequest().getMember().getEmail(),
-                        "OVERDUE",
-                        "Remboursement en retard: " + repayment.getAmount()
-                );
-            } else if (repayment.getLoan() != null && repayment.getLoan().getMember() != null) {
-                notificationService.notifyRepaymentStatusChange(
-                        repayment.getLoan().getMember().getEmail(),
-                        "OVERDUE",
-                        "Remboursement en retard: " + repayment.getAmount()
-                );
+    /**
+     * Passe en retard toutes les échéances PENDING dépassées, par lots : une requête pour les
+     * identifiants, une jointure pour les emails, une mise à jour en masse et un insert groupé
+     * des notifications. Chaque lot a sa propre transaction.
+     */
+    public OverdueMarkingReport markOverdueRepayments() {
+        return markOverdueRepayments(null, new Date());
+    }
+
+    /**
+     * Même traitement limité aux échéances dues entre dueFrom (inclus, null = sans borne) et dueBefore.
+     */
+    public OverdueMarkingReport markOverdueRepayments(Date dueFrom, Date dueBefore) {
+        long start = System.currentTimeMillis();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        OverdueMarkingReport report = new OverdueMarkingReport();
+
+        while (true) {
+            int[] chunk = transactionTemplate.execute(status -> markOverdueChunk(dueFrom, dueBefore));
+            if (chunk == null || chunk[0] == 0) {
+                break;
             }
+            report.setChunks(report.getChunks() + 1);
+            report.setRowsProcessed(report.getRowsProcessed() + chunk[0]);
+            report.setNotificationsCreated(report.getNotificationsCreated() + chunk[1]);
         }
+
+        report.setElapsedMs(System.currentTimeMillis() - start);
+        log.info("Marquage des retards: {} échéance(s), {} notification(s), {} lot(s) en {} ms",
+                report.getRowsProcessed(), report.getNotificationsCreated(), report.getChunks(), report.getElapsedMs());
+        return report;
+    }
+
+    // Retourne {lignes mises à jour, notifications créées}
+    private int[] markOverdueChunk(Date dueFrom, Date dueBefore) {
+        PageRequest chunk = PageRequest.of(0, OVERDUE_CHUNK_SIZE);
+        List<Long> ids = dueFrom == null
+                ? repaymentRepository.findPendingIdsDueBefore(dueBefore, chunk)
+                : repaymentRepository.findPendingIdsDueBetween(dueFrom, dueBefore, chunk);
+        if (ids.isEmpty()) {
+            return new int[]{0, 0};
+        }
+
+        List<OverdueRepaymentView> targets = repaymentRepository.findOverdueNotificationTargets(ids);
+        int updated = repaymentRepository.markOverdue(ids);
+        int notified = notificationService.notifyRepaymentsOverdue(targets);
+        return new int[]{updated, notified};
     }
 
     public BigDecimal getTotalRepaidAmountByMember(Long memberId) {
@@ -0,0 +1,40 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.repositories.SchedulerLockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Verrou en base pour qu'un traitement planifié ne tourne que sur une instance à la fois.
+ * Le verrou expire de lui-même après lockAtMostFor si l'instance qui le détient s'arrête.
+ */
+@Slf4j
+@Service
+public class SchedulerLockService {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+    // Identifiant de cette instance (pid@hôte)
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+
+    public SchedulerLockService(SchedulerLockRepository schedulerLockRepository) {
+        this.schedulerLockRepository = schedulerLockRepository;
+    }
+
+    public boolean tryLock(String name, Duration lockAtMostFor) {
+        Instant now = Instant.now();
+        schedulerLockRepository.createIfAbsent(name, now);
+        boolean acquired = schedulerLockRepository.tryAcquire(name, now, now.plus(lockAtMostFor), instanceId) == 1;
+        if (!acquired) {
+            log.debug("Verrou {} déjà détenu par une autre instance", name);
+        }
+        return acquired;
+    }
+
+    public void unlock(String name) {
+        schedulerLockRepository.release(name, Instant.now(), instanceId);
+    }
+}
@@ -0,0 +1,114 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.entities.TokenRevocation;
+import com.wbf.mutuelle.repositories.TokenRevocationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Liste de révocation des tokens JWT utilisée par l'authentification sans état.
+ * Une entrée n'a d'intérêt que pendant la durée de vie d'un token (jwt.expiration) :
+ * au-delà, tous les tokens émis avant la révocation ont expiré d'eux-mêmes.
+ * Avec jwt.revocation.persist, la table est relue périodiquement : une révocation faite
+ * par une autre instance est appliquée ici au plus tard après jwt.revocation.refresh-interval.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final long tokenLifetime;
+    private final boolean persist;
+
+    private final Map<String, Instant> revocations = new ConcurrentHashMap<>();
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+                                  @Value("${jwt.expiration}") long tokenLifetime,
+                                  @Value("${jwt.revocation.persist:false}") boolean persist) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.tokenLifetime = tokenLifetime;
+        this.persist = persist;
+    }
+
+    @PostConstruct
+    void loadPersistedRevocations() {
+        if (!persist) {
+            return;
+        }
+        reloadPersistedRevocations();
+        log.info("{} révocation(s) de token rechargée(s)", revocations.size());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval:PT30S}",
+            initialDelayString = "${jwt.revocation.refresh-interval:PT30S}")
+    public void refreshPersistedRevocations() {
+        if (!persist) {
+            return;
+        }
+        try {
+            reloadPersistedRevocations();
+        } catch (Exception e) {
+            log.error("Erreur lors du rechargement des révocations de token", e);
+        }
+    }
+
+    // Fusion : une révocation locale plus récente que la table (écriture en cours) est conservée
+    private void reloadPersistedRevocations() {
+        Instant since = Instant.now().minusMillis(tokenLifetime);
+        tokenRevocationRepository.deleteOlderThan(since);
+        tokenRevocationRepository.findByRevokedAtAfter(since)
+                .forEach(r -> revocations.merge(r.getEmail(), r.getRevokedAt(),
+                        (current, loaded) -> loaded.isAfter(current) ? loaded : current));
+        purgeExpired();
+    }
+
+    /**
+     * Révoque tous les tokens déjà émis pour ce membre (changement de rôle, d'email, suppression).
+     */
+    public void revokeTokensOf(String email) {
+        if (email == null) {
+            return;
+        }
+        // À la milliseconde (précision conservée par la table) ; voir isRevoked pour la comparaison
+        Instant revokedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        String key = normalize(email);
+        revocations.put(key, revokedAt);
+        if (persist) {
+            tokenRevocationRepository.save(new TokenRevocation(key, revokedAt));
+        }
+        purgeExpired();
+    }
+
+    /**
+     * Les dates d'émission JWT sont à la seconde (tronquée) : un token émis dans la seconde
+     * de la révocation, avant comme après, est refusé. Le membre n'a qu'à se reconnecter.
+     */
+    public boolean isRevoked(String email, Instant issuedAt) {
+        if (email == null) {
+            return true;
+        }
+        Instant revokedAt = revocations.get(normalize(email));
+        if (revokedAt == null) {
+            return false;
+        }
+        return issuedAt == null || !issuedAt.isAfter(revokedAt);
+    }
+
+    private void purgeExpired() {
+        Instant limit = Instant.now().minusMillis(tokenLifetime);
+        revocations.values().removeIf(revokedAt -> revokedAt.isBefore(limit));
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -8,6 +8,7 @@ import com.wbf.mutuelle.repositories.LoanRequestRepository;
 import com.wbf.mutuelle.repositories.MemberRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +26,7 @@ public class TreasurerLoanService {
     private final LoanRequestRepository loanRequestRepository;
     private final LoanRepository loanRepository;
     private final MemberRepository memberRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Accorder un prêt approuvé (action du trésorier)
@@ -59,6 +61,7 @@ public class TreasurerLoanService {
             loanRequest.setLoanGrantedDate(new Date());
             loanRequest.setTreasurerGrantComment(treasurerComment);
             loanRequestRepository.save(loanRequest);
+            publishFinancialChange(loan);
 
             log.info("✅ Prêt accordé par le trésorier pour la demande ID: {}", loanRequestId);
             return loan;
@@ -134,6 +137,7 @@ public class TreasurerLoanService {
 
             // Supprimer le prêt
             loanRepository.delete(loan);
+            publishFinancialChange(loan);
         }
 
         // Réinitialiser l'accord
@@ -145,6 +149,12 @@ public class TreasurerLoanService {
         log.info("❌ Accord de prêt annulé pour la demande ID: {}", loanRequestId);
     }
 
+    private void publishFinancialChange(Loan loan) {
+        if (loan.getMember() != null) {
+            eventPublisher.publishEvent(MemberFinancialChangedEvent.of(loan.getMember().getId()));
+        }
+    }
+
     // Méthodes utilitaires de calcul
     private BigDecimal calculateRepaymentAmount(BigDecimal amount, BigDecimal interestRate, Integer duration) {
         if (amount == null || interestRate == null || duration == null) {
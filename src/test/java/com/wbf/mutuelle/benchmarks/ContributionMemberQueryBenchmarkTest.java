@@ -0,0 +1,79 @@
+package com.wbf.mutuelle.benchmarks;
+
+import com.wbf.mutuelle.repositories.ContributionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Plans d'exécution des requêtes « cotisations d'un membre » avant / après réécriture
+ * (OR + IN sous-requête contre UNION ALL de deux recherches indexées), sur un jeu de données
+ * généré par benchmarks/contribution-member-seed.sql. Tout est annulé à la fin.
+ *
+ * Lancement : mvn test -Dtest=ContributionMemberQueryBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ContributionMemberQueryBenchmarkTest {
+
+    private static final String MEMBER_ID = "900004242";
+
+    private static final String OR_PREDICATE =
+            "c.member_id = :memberId OR :memberId IN (SELECT cm.member_id FROM contribution_members cm WHERE cm.contribution_id = c.id)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void compareMemberContributionPlans() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("benchmarks/contribution-member-seed.sql"));
+                return null;
+            });
+
+            explain("liste - OR/IN",
+                    "SELECT c.* FROM contribution c WHERE " + OR_PREDICATE);
+            explain("liste - UNION ALL",
+                    "SELECT c.* FROM contribution c WHERE c.member_id = :memberId UNION ALL " +
+                    "SELECT c.* FROM contribution c WHERE " + ContributionRepository.GROUP_MEMBER_PREDICATE);
+
+            explain("comptage - OR/IN",
+                    "SELECT COUNT(*) FROM contribution c WHERE " + OR_PREDICATE);
+            explain("comptage - UNION ALL",
+                    "SELECT (SELECT COUNT(*) FROM contribution c WHERE c.member_id = :memberId) " +
+                    "+ (SELECT COUNT(*) FROM contribution c WHERE " + ContributionRepository.GROUP_MEMBER_PREDICATE + ")");
+
+            explain("10 plus récentes - OR/IN",
+                    "SELECT c.* FROM contribution c WHERE " + OR_PREDICATE + " ORDER BY c.payment_date DESC LIMIT 10");
+            explain("10 plus récentes - UNION ALL",
+                    "SELECT u.* FROM (" +
+                    "(SELECT c.* FROM contribution c WHERE c.member_id = :memberId ORDER BY c.payment_date DESC LIMIT 10) " +
+                    "UNION ALL " +
+                    "(SELECT c.* FROM contribution c WHERE " + ContributionRepository.GROUP_MEMBER_PREDICATE +
+                    " ORDER BY c.payment_date DESC LIMIT 10)) u ORDER BY u.payment_date DESC LIMIT 10");
+
+            status.setRollbackOnly();
+        });
+    }
+
+    private void explain(String label, String sql) {
+        List<String> plan = jdbcTemplate.queryForList(
+                "EXPLAIN (ANALYZE, BUFFERS) " + sql.replace(":memberId", MEMBER_ID), String.class);
+
+        System.out.printf("%n[cotisations par membre] %s%n", label);
+        plan.forEach(line -> System.out.println("    " + line));
+    }
+}
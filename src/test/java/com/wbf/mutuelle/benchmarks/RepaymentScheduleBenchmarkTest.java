@@ -0,0 +1,102 @@
+package com.wbf.mutuelle.benchmarks;
+
+import com.wbf.mutuelle.entities.Loan;
+import com.wbf.mutuelle.repositories.LoanRepository;
+import com.wbf.mutuelle.services.RepaymentService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Génération des échéanciers de 10 000 prêts (12 échéances chacun) sur une vraie base PostgreSQL.
+ * Affiche le débit et le nombre d'ordres JDBC préparés pour vérifier le batch des inserts.
+ *
+ * Lancement : mvn test -Dtest=RepaymentScheduleBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RepaymentScheduleBenchmarkTest {
+
+    private static final int LOANS = 10_000;
+    private static final int INSTALLMENTS = 12;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private RepaymentService repaymentService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void generateSchedulesFor10kLoans() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Long> loanIds = transactionTemplate.execute(status -> createLoans());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long start = System.nanoTime();
+        try {
+            for (Long loanId : loanIds) {
+                repaymentService.createInstallmentsForLoan(loanId);
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            System.out.printf("%n[échéanciers] %d prêts, %d échéances en %.2f s : %.0f prêts/s, %.0f échéances/s%n",
+                    LOANS, statistics.getEntityInsertCount(), seconds, LOANS / seconds, statistics.getEntityInsertCount() / seconds);
+            System.out.printf("[échéanciers] ordres JDBC préparés : %d, transactions : %d%n",
+                    statistics.getPrepareStatementCount(), statistics.getTransactionCount());
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> deleteLoans(loanIds));
+        }
+    }
+
+    private List<Long> createLoans() {
+        List<Loan> loans = new ArrayList<>(LOANS);
+        for (int i = 0; i < LOANS; i++) {
+            Loan loan = new Loan();
+            loan.setAmount(BigDecimal.valueOf(120_000));
+            loan.setDuration(INSTALLMENTS);
+            loan.setInterestRate(BigDecimal.ZERO);
+            loan.setBeginDate(new Date());
+            loan.setIsRepaid(false);
+            loans.add(loan);
+        }
+        return loanRepository.saveAll(loans).stream().map(Loan::getId).toList();
+    }
+
+    private void deleteLoans(List<Long> loanIds) {
+        for (int from = 0; from < loanIds.size(); from += 1000) {
+            List<Long> chunk = loanIds.subList(from, Math.min(from + 1000, loanIds.size()));
+            entityManager.createQuery("DELETE FROM Repayment r WHERE r.loan.id IN :ids")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+            entityManager.createQuery("DELETE FROM Loan l WHERE l.id IN :ids")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+    }
+}
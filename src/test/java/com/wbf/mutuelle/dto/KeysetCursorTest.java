@@ -0,0 +1,85 @@
+package com.wbf.mutuelle.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsDateAndId() {
+        KeysetCursor cursor = new KeysetCursor(new Date(1_735_689_600_123L), 42L);
+
+        assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void roundTripsMissingDate() {
+        KeysetCursor decoded = KeysetCursor.decode(new KeysetCursor(null, 7L).encode());
+
+        assertNull(decoded.date());
+        assertEquals(7L, decoded.id());
+    }
+
+    @Test
+    void roundTripsDateBeforeEpoch() {
+        KeysetCursor cursor = new KeysetCursor(new Date(-86_400_000L), 1L);
+
+        assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new KeysetCursor(new Date(Long.MAX_VALUE), Long.MAX_VALUE).encode();
+
+        assertEquals(-1, indexOfAny(token, "+/="));
+    }
+
+    @Test
+    void blankTokenMeansFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(""));
+        assertNull(KeysetCursor.decode("   "));
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertInvalid("pas du base64 !");
+        assertInvalid(encode("1735689600000"));
+        assertInvalid(encode("1735689600000:"));
+        assertInvalid(encode("1735689600000:abc"));
+        assertInvalid(encode("hier:42"));
+        assertInvalid(encode(":null"));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = new KeysetCursor(new Date(1_735_689_600_000L), 42L).encode();
+
+        assertInvalid(token.substring(1));
+    }
+
+    private static void assertInvalid(String token) {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(token));
+        assertEquals("Curseur de pagination invalide", error.getMessage());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int indexOfAny(String value, String characters) {
+        for (int i = 0; i < value.length(); i++) {
+            if (characters.indexOf(value.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
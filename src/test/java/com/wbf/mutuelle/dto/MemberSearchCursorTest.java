@@ -0,0 +1,66 @@
+package com.wbf.mutuelle.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MemberSearchCursorTest {
+
+    @Test
+    void roundTripsSortKeyAndId() {
+        MemberSearchCursor cursor = new MemberSearchCursor("doe jane", 42L);
+
+        assertEquals(cursor, MemberSearchCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void sortKeyMayContainSeparator() {
+        MemberSearchCursor cursor = new MemberSearchCursor("n'diaye: awa : 2", 9L);
+
+        assertEquals(cursor, MemberSearchCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void roundTripsEmptyAndAccentedSortKeys() {
+        assertEquals(new MemberSearchCursor("", 3L), MemberSearchCursor.decode(new MemberSearchCursor("", 3L).encode()));
+        assertEquals(new MemberSearchCursor("hounkpè éloïse", 4L),
+                MemberSearchCursor.decode(new MemberSearchCursor("hounkpè éloïse", 4L).encode()));
+    }
+
+    @Test
+    void blankTokenMeansFirstPage() {
+        assertNull(MemberSearchCursor.decode(null));
+        assertNull(MemberSearchCursor.decode(""));
+        assertNull(MemberSearchCursor.decode(" "));
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertInvalid("%%%");
+        assertInvalid(encode("42"));
+        assertInvalid(encode("doe jane:42"));
+        assertInvalid(encode(":doe jane"));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = new MemberSearchCursor("doe jane", 42L).encode();
+
+        assertInvalid("*" + token);
+    }
+
+    private static void assertInvalid(String token) {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> MemberSearchCursor.decode(token));
+        assertEquals("Curseur de pagination invalide", error.getMessage());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,94 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.Contribution;
+import com.wbf.mutuelle.entities.ContributionType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContributionPageRepositoryImplTest {
+
+    private EntityManager entityManager;
+    private Query query;
+    private ContributionPageRepositoryImpl repository;
+    private final List<List<Contribution>> results = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        query = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString(), eq(Contribution.class))).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenAnswer(invocation -> results.isEmpty() ? List.of() : results.remove(0));
+        repository = new ContributionPageRepositoryImpl(entityManager);
+    }
+
+    @Test
+    void datedCursorUsesSingleRowComparison() {
+        repository.findPage(null, 3L, null, new Date(), 42L, 20);
+
+        String sql = executedSql(1).get(0);
+        assertTrue(sql.contains("(c.payment_date, c.id) < (:cursorDate, :cursorId)"));
+        assertTrue(sql.contains("c.contribution_period_id = :periodId"));
+        assertFalse(sql.contains("IS NULL OR"));
+        assertFalse(sql.contains("contribution_type"));
+    }
+
+    @Test
+    void undatedCursorFinishesUndatedRowsThenReadsDatedOnes() {
+        results.add(List.of(new Contribution()));
+
+        List<Contribution> page = repository.findPage(null, null, null, null, 42L, 20);
+
+        List<String> sql = executedSql(2);
+        assertTrue(sql.get(0).contains("c.payment_date IS NULL AND c.id < :cursorId"));
+        assertTrue(sql.get(1).contains("c.payment_date IS NOT NULL"));
+        assertFalse(sql.get(1).contains(":cursorId"));
+        assertEquals(1, page.size());
+        verify(query).setParameter("limit", 19);
+    }
+
+    @Test
+    void fullUndatedPageSkipsDatedSection() {
+        results.add(List.of(new Contribution(), new Contribution()));
+
+        repository.findPage(null, null, null, null, null, 2);
+
+        executedSql(1);
+    }
+
+    @Test
+    void memberFilterMatchesIndividualAndGroupContributions() {
+        repository.findPage(ContributionType.INDIVIDUAL, null, 7L, new Date(), 42L, 20);
+
+        String sql = executedSql(1).get(0);
+        assertTrue(sql.contains("c.member_id = :memberId AND"));
+        assertTrue(sql.contains("UNION ALL"));
+        assertTrue(sql.contains(ContributionRepository.GROUP_MEMBER_PREDICATE));
+        assertTrue(sql.contains("ORDER BY u.payment_date DESC, u.id DESC"));
+        verify(query).setParameter("contributionType", "INDIVIDUAL");
+    }
+
+    private List<String> executedSql(int expected) {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(entityManager, times(expected)).createNativeQuery(sql.capture(), eq(Contribution.class));
+        return sql.getAllValues();
+    }
+}
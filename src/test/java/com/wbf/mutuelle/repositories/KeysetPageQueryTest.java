@@ -0,0 +1,106 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.Loan;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KeysetPageQueryTest {
+
+    private EntityManager entityManager;
+    private TypedQuery<Loan> query;
+    private LoanPageRepositoryImpl repository;
+    private final List<List<Loan>> results = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        query = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(Loan.class))).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.setMaxResults(anyInt())).thenReturn(query);
+        when(query.getResultList()).thenAnswer(invocation -> results.isEmpty() ? List.of() : results.remove(0));
+        repository = new LoanPageRepositoryImpl(entityManager);
+    }
+
+    @Test
+    void datedCursorUsesSingleRowComparison() {
+        repository.findPage(null, 7L, new Date(), 42L, 20);
+
+        String jpql = executedJpql(1).get(0);
+        assertTrue(jpql.contains("(l.beginDate, l.id) < (:cursorDate, :cursorId)"));
+        assertTrue(jpql.contains("l.member.id = :f0"));
+        assertTrue(jpql.endsWith("ORDER BY l.beginDate DESC, l.id DESC"));
+        assertFalse(jpql.contains("IS NULL OR"));
+        assertFalse(jpql.contains("isRepaid"));
+        verify(query).setParameter("f0", 7L);
+    }
+
+    @Test
+    void undatedCursorFinishesUndatedRowsThenReadsDatedOnes() {
+        results.add(List.of(new Loan()));
+
+        List<Loan> page = repository.findPage(true, null, null, 42L, 20);
+
+        List<String> jpql = executedJpql(2);
+        assertTrue(jpql.get(0).contains("l.beginDate IS NULL AND l.id < :cursorId AND l.isRepaid = :f0"));
+        assertTrue(jpql.get(0).endsWith("ORDER BY l.id DESC"));
+        assertTrue(jpql.get(1).contains("l.beginDate IS NOT NULL AND l.isRepaid = :f0"));
+        assertFalse(jpql.get(1).contains(":cursorId"));
+        assertEquals(1, page.size());
+        verify(query).setMaxResults(19);
+    }
+
+    @Test
+    void fullUndatedPageSkipsDatedSection() {
+        results.add(List.of(new Loan(), new Loan()));
+
+        repository.findPage(null, null, null, null, 2);
+
+        executedJpql(1);
+        verify(query, never()).setParameter(eq("cursorId"), any());
+    }
+
+    @Test
+    void countOnlyFiltersOnGivenValues() {
+        @SuppressWarnings("unchecked")
+        TypedQuery<Long> count = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(Long.class))).thenReturn(count);
+        when(count.getSingleResult()).thenReturn(3L);
+
+        assertEquals(3L, repository.countPage(null, null));
+        assertEquals(3L, repository.countPage(false, 7L));
+
+        ArgumentCaptor<String> jpql = ArgumentCaptor.forClass(String.class);
+        verify(entityManager, times(2)).createQuery(jpql.capture(), eq(Long.class));
+        assertEquals("SELECT COUNT(l.id) FROM Loan l", jpql.getAllValues().get(0));
+        assertEquals("SELECT COUNT(l.id) FROM Loan l WHERE l.isRepaid = :f0 AND l.member.id = :f1",
+                jpql.getAllValues().get(1));
+    }
+
+    private List<String> executedJpql(int expected) {
+        ArgumentCaptor<String> jpql = ArgumentCaptor.forClass(String.class);
+        verify(entityManager, times(expected)).createQuery(jpql.capture(), eq(Loan.class));
+        return jpql.getAllValues();
+    }
+}
@@ -0,0 +1,74 @@
+package com.wbf.mutuelle.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class MemberRepositoryDirectoryTest {
+
+    private MemberRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        // Méthodes par défaut exécutées, requêtes simulées
+        repository = mock(MemberRepository.class, CALLS_REAL_METHODS);
+    }
+
+    @Test
+    void eachCaseHasItsOwnQuery() {
+        repository.searchDirectory(null, null, null, null, 21);
+        repository.searchDirectory(null, null, "doe jane", 4L, 21);
+        repository.searchDirectory("doe", "doe%", null, null, 21);
+        repository.searchDirectory("doe", "doe%", "doe jane", 4L, 21);
+
+        verify(repository).findDirectory(21);
+        verify(repository).findDirectoryAfter("doe jane", 4L, 21);
+        verify(repository).searchDirectoryFirst("doe", "doe%", 21);
+        verify(repository).searchDirectoryAfter("doe", "doe%", "doe jane", 4L, 21);
+    }
+
+    @Test
+    void countWithoutQueryCountsAllMembers() {
+        repository.countDirectory(null, null);
+        repository.countDirectory("doe", "doe%");
+
+        verify(repository).count();
+        verify(repository).countDirectoryMatches("doe", "doe%");
+        verify(repository, never()).searchDirectoryFirst(anyString(), anyString(), anyInt());
+        verify(repository, never()).findDirectoryAfter(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void queriesHaveNoOptionalPredicates() {
+        for (String name : new String[]{"findDirectory", "findDirectoryAfter", "searchDirectoryFirst",
+                "searchDirectoryAfter", "countDirectoryMatches"}) {
+            String sql = query(name);
+            assertFalse(sql.contains("IS NULL"), name);
+            assertEquals(name.contains("After"), sql.contains("> (CAST(:cursorKey AS text), :cursorId)"), name);
+            assertEquals(!name.startsWith("find"), sql.contains("LIKE :prefix"), name);
+        }
+        assertTrue(query("findDirectory").endsWith("LIMIT :limit"));
+    }
+
+    private static String query(String methodName) {
+        Method method = Arrays.stream(MemberRepository.class.getMethods())
+                .filter(candidate -> candidate.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow();
+        return method.getAnnotation(Query.class).value();
+    }
+}
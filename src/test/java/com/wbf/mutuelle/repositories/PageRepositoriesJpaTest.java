@@ -0,0 +1,136 @@
+package com.wbf.mutuelle.repositories;
+
+import com.wbf.mutuelle.entities.Loan;
+import com.wbf.mutuelle.entities.LoanRequest;
+import com.wbf.mutuelle.entities.Member;
+import com.wbf.mutuelle.entities.Notification;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parcours complet des pages contre une vraie base (H2, schéma généré par Hibernate) :
+ * chaque ligne est lue une fois, dans l'ordre (date DESC NULLS FIRST, id DESC).
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class PageRepositoriesJpaTest {
+
+    private static final long DAY = 86_400_000L;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private NotificationRepository notificationRepository;
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private LoanRequestRepository loanRequestRepository;
+
+    @Test
+    void notificationPagesFollowSendDateThenId() {
+        Date sameDay = new Date(20 * DAY);
+        // Ordre attendu : sans date (id décroissant), puis dates décroissantes, id décroissant à date égale
+        long undatedFirst = notification("jane", null).getId();
+        long undatedSecond = notification("jane", null).getId();
+        long tieFirst = notification("jane", sameDay).getId();
+        long older = notification("jane", new Date(10 * DAY)).getId();
+        long tieSecond = notification("jane", sameDay).getId();
+        notification("john", new Date(30 * DAY));
+        entityManager.clear();
+
+        List<Notification> read = readAll(cursor -> notificationRepository.findPage("jane", null,
+                cursor != null ? cursor.getSend_date() : null, cursor != null ? cursor.getId() : null, 2));
+
+        assertEquals(List.of(undatedSecond, undatedFirst, tieSecond, tieFirst, older),
+                read.stream().map(Notification::getId).toList());
+        assertEquals(5, notificationRepository.countPage("jane", null));
+        assertEquals(6, notificationRepository.countPage(null, null));
+    }
+
+    @Test
+    void loanPagesFilterOnRepaymentAndMember() {
+        Member member = entityManager.persist(new Member());
+        Loan recent = loan(member, false, new Date(20 * DAY));
+        Loan undated = loan(member, false, null);
+        loan(member, true, new Date(30 * DAY));
+        Loan old = loan(null, false, new Date(10 * DAY));
+        entityManager.clear();
+
+        List<Loan> unpaid = readAll(cursor -> loanRepository.findPage(false, null,
+                cursor != null ? cursor.getBeginDate() : null, cursor != null ? cursor.getId() : null, 1));
+
+        assertEquals(List.of(undated.getId(), recent.getId(), old.getId()), unpaid.stream().map(Loan::getId).toList());
+        assertEquals(2, loanRepository.countPage(false, member.getId()));
+        assertEquals(4, loanRepository.countPage(null, null));
+    }
+
+    @Test
+    void loanRequestPagesLoadTheirMember() {
+        Member member = new Member();
+        member.setEmail("jane@mutuelle.org");
+        entityManager.persist(member);
+        LoanRequest approved = loanRequest(member, "APPROVED", new Date(20 * DAY));
+        LoanRequest older = loanRequest(member, "APPROVED", new Date(10 * DAY));
+        loanRequest(member, "PENDING", new Date(30 * DAY));
+        entityManager.clear();
+
+        List<LoanRequest> read = readAll(cursor -> loanRequestRepository.findPage("APPROVED", member.getId(),
+                cursor != null ? cursor.getRequestDate() : null, cursor != null ? cursor.getId() : null, 1));
+
+        assertEquals(List.of(approved.getId(), older.getId()), read.stream().map(LoanRequest::getId).toList());
+        assertTrue(read.stream().allMatch(request -> Hibernate.isInitialized(request.getMember())));
+        assertEquals(3, loanRequestRepository.countPage(null, member.getId()));
+    }
+
+    // Enchaîne les pages en reprenant après la dernière ligne lue, jusqu'à une page vide
+    private static <T> List<T> readAll(Function<T, List<T>> nextPage) {
+        List<T> read = new ArrayList<>();
+        List<T> page = nextPage.apply(null);
+        while (!page.isEmpty()) {
+            read.addAll(page);
+            page = nextPage.apply(page.get(page.size() - 1));
+        }
+        return read;
+    }
+
+    private Notification notification(String receiver, Date sendDate) {
+        Notification notification = new Notification();
+        notification.setReceiver(receiver);
+        notification.setSend_date(sendDate);
+        return entityManager.persistFlushFind(notification);
+    }
+
+    private Loan loan(Member member, boolean repaid, Date beginDate) {
+        Loan loan = new Loan();
+        loan.setMember(member);
+        loan.setIsRepaid(repaid);
+        loan.setBeginDate(beginDate);
+        return entityManager.persistFlushFind(loan);
+    }
+
+    private LoanRequest loanRequest(Member member, String status, Date requestDate) {
+        LoanRequest request = new LoanRequest();
+        request.setMember(member);
+        request.setStatus(status);
+        request.setRequestDate(requestDate);
+        request.setRequestAmount(new BigDecimal("100000"));
+        request.setDuration(12);
+        request.setReason("Équipement");
+        return entityManager.persistFlushFind(request);
+    }
+}
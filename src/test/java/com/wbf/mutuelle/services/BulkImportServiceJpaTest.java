@@ -0,0 +1,86 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.dto.ImportReport;
+import com.wbf.mutuelle.entities.Member;
+import com.wbf.mutuelle.repositories.ContributionPeriodRepository;
+import com.wbf.mutuelle.repositories.ContributionRepository;
+import com.wbf.mutuelle.repositories.MemberRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reprise d'un lot en échec contre une vraie base (H2, schéma généré par Hibernate).
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+// Les transactions sont celles du service : un lot annulé l'est vraiment
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkImportServiceJpaTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BulkImportService service;
+
+    @BeforeEach
+    void setUp() {
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(anyString())).thenReturn("{noop}import");
+        service = new BulkImportService(mock(ContributionRepository.class), mock(ContributionPeriodRepository.class),
+                memberRepository, mock(ContributionBalanceService.class), mock(ContributionStatisticsService.class),
+                mock(MemberFinancialSummaryService.class), mock(ApplicationEventPublisher.class),
+                passwordEncoder, entityManager, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void failedChunkIsRetriedWithFreshMembers() throws Exception {
+        // Nom trop long pour la colonne : le lot entier est annulé après l'attribution des ids
+        ImportReport report = service.importMembers(csv("name,email\n"
+                + "Doe,jane@mutuelle.org\n"
+                + "x".repeat(300) + ",rejet@mutuelle.org\n"
+                + "Smith,john@mutuelle.org\n"));
+
+        assertEquals(3, report.getTotalRows());
+        assertEquals(2, report.getImportedRows());
+        assertEquals(1, report.getFailedRows());
+        assertEquals(3, report.getErrors().get(0).rowNumber());
+        assertTrue(report.getErrors().get(0).message().startsWith("Ligne non enregistrée : "));
+        assertEquals(List.of("jane@mutuelle.org", "john@mutuelle.org"),
+                memberRepository.findAll().stream().map(Member::getEmail).sorted().toList());
+    }
+
+    private static MockMultipartFile csv(String content) {
+        return new MockMultipartFile("file", "membres.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
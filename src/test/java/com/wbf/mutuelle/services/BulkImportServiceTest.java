@@ -0,0 +1,158 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.dto.ImportReport;
+import com.wbf.mutuelle.entities.Member;
+import com.wbf.mutuelle.repositories.ContributionPeriodRepository;
+import com.wbf.mutuelle.repositories.ContributionRepository;
+import com.wbf.mutuelle.repositories.MemberRepository;
+import com.wbf.mutuelle.services.BulkImportService.Row;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkImportServiceTest {
+
+    private MemberRepository memberRepository;
+    private BulkImportService service;
+    private final List<String> savedEmails = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        memberRepository = mock(MemberRepository.class);
+        service = new BulkImportService(mock(ContributionRepository.class), mock(ContributionPeriodRepository.class),
+                memberRepository, mock(ContributionBalanceService.class), mock(ContributionStatisticsService.class),
+                mock(MemberFinancialSummaryService.class), mock(ApplicationEventPublisher.class),
+                mock(PasswordEncoder.class), mock(EntityManager.class), mock(PlatformTransactionManager.class));
+
+        when(memberRepository.findAllIdsAndEmails()).thenReturn(List.of());
+        // Le lot échoue dès qu'il contient le membre "Rejet" (contrainte violée en base)
+        when(memberRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Member> members = invocation.getArgument(0);
+            if (members.stream().anyMatch(member -> "Rejet".equals(member.getName()))) {
+                throw new IllegalStateException("valeur trop longue");
+            }
+            members.forEach(member -> savedEmails.add(member.getEmail()));
+            return members;
+        });
+    }
+
+    // =============================================
+    // REPRISE D'UN LOT EN ÉCHEC
+    // =============================================
+
+    @Test
+    void failedChunkIsRetriedRowByRow() throws Exception {
+        ImportReport report = service.importMembers(csv("""
+                name,email
+                Doe,jane@mutuelle.org
+                Rejet,rejet@mutuelle.org
+                Smith,john@mutuelle.org
+                """));
+
+        assertEquals(3, report.getTotalRows());
+        assertEquals(2, report.getImportedRows());
+        assertEquals(1, report.getFailedRows());
+        assertEquals(3, report.getErrors().get(0).rowNumber());
+        assertEquals("Ligne non enregistrée : valeur trop longue", report.getErrors().get(0).message());
+        assertEquals(List.of("jane@mutuelle.org", "john@mutuelle.org"), savedEmails);
+    }
+
+    @Test
+    void quotedMultilineFieldIsOneRow() throws Exception {
+        ImportReport report = service.importMembers(csv("name,email,npi\n\"Doe\njunior\",jane@mutuelle.org,1\nSmith,john@mutuelle.org,2\n"));
+
+        assertEquals(2, report.getTotalRows());
+        assertEquals(2, report.getImportedRows());
+    }
+
+    // =============================================
+    // EN-TÊTES
+    // =============================================
+
+    @Test
+    void headersAreNormalized() {
+        assertEquals("datepaiement", BulkImportService.normalizeHeader("Date paiement"));
+        assertEquals("prenom", BulkImportService.normalizeHeader(" Prénom "));
+        assertEquals("memberid", BulkImportService.normalizeHeader("member_ID"));
+        assertEquals("telephone", BulkImportService.normalizeHeader("Téléphone"));
+    }
+
+    // =============================================
+    // LECTURE DES CELLULES
+    // =============================================
+
+    @Test
+    void textTrimsAndTreatsBlankAsMissing() {
+        Row row = row(" jane@mutuelle.org ", "  ", null);
+
+        assertEquals("jane@mutuelle.org", row.text(0));
+        assertNull(row.text(1));
+        assertNull(row.text(2));
+        assertNull(row.text(5));
+        assertNull(row.text(null));
+    }
+
+    @Test
+    void numberAcceptsExcelDecimals() {
+        assertEquals(12L, row("12.0").number(0, "memberId"));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> row("12.5").number(0, "memberId"));
+        assertEquals("memberId invalide : 12.5", error.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> row("abc").number(0, "memberId"));
+    }
+
+    @Test
+    void decimalAcceptsFrenchFormatting() {
+        assertEquals(new BigDecimal("5000.50"), row("5 000,50").decimal(0, "Montant"));
+        assertEquals(new BigDecimal("5000"), row("5 000").decimal(0, "Montant"));
+        assertThrows(IllegalArgumentException.class, () -> row("cinq").decimal(0, "Montant"));
+    }
+
+    @Test
+    void decimalFromXlsxIsTakenAsIs() {
+        Row row = new Row(List.of("5000.5", "5 000,50"), false);
+
+        assertEquals(new BigDecimal("5000.5"), row.decimal(0, "Montant"));
+        assertThrows(IllegalArgumentException.class, () -> row.decimal(1, "Montant"));
+    }
+
+    @Test
+    void dateAcceptsIsoAndFrenchFormats() {
+        LocalDate expected = LocalDate.of(2025, 3, 14);
+
+        assertEquals(expected, toLocalDate(row("2025-03-14").date(0)));
+        assertEquals(expected, toLocalDate(row("14/03/2025").date(0)));
+        assertThrows(IllegalArgumentException.class, () -> row("03-14-2025").date(0));
+    }
+
+    private static Row row(String... cells) {
+        return new Row(Arrays.asList(cells), true);
+    }
+
+    private static LocalDate toLocalDate(java.util.Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private static MockMultipartFile csv(String content) {
+        return new MockMultipartFile("file", "membres.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
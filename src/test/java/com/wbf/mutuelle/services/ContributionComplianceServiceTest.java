@@ -0,0 +1,253 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.dto.ComplianceSyncReport;
+import com.wbf.mutuelle.dto.MemberArrearsView;
+import com.wbf.mutuelle.dto.PeriodComplianceView;
+import com.wbf.mutuelle.entities.ContributionPeriod;
+import com.wbf.mutuelle.repositories.ContributionPeriodRepository;
+import com.wbf.mutuelle.repositories.ContributionRepository;
+import com.wbf.mutuelle.repositories.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContributionComplianceServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private ContributionRepository contributionRepository;
+    private ContributionPeriodRepository contributionPeriodRepository;
+    private MemberRepository memberRepository;
+    private ContributionComplianceService service;
+
+    private final List<Object[]> members = new ArrayList<>();
+    private final List<ContributionPeriod> periods = new ArrayList<>();
+    private final List<Object[]> payments = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        contributionRepository = mock(ContributionRepository.class);
+        contributionPeriodRepository = mock(ContributionPeriodRepository.class);
+        memberRepository = mock(MemberRepository.class);
+        service = new ContributionComplianceService(contributionRepository, contributionPeriodRepository,
+                memberRepository, mock(SchedulerLockService.class), new ConcurrentMapCacheManager(),
+                mock(PlatformTransactionManager.class), false, true, null);
+
+        when(memberRepository.findComplianceBaselines()).thenAnswer(invocation -> members);
+        when(contributionPeriodRepository.findAll()).thenAnswer(invocation -> periods);
+        when(contributionRepository.streamPaidMemberPeriods()).thenAnswer(invocation -> payments.stream());
+        when(memberRepository.findManualStatusIds()).thenReturn(List.of());
+
+        period(10L, TODAY.minusMonths(2));
+        period(11L, TODAY.minusDays(7));
+    }
+
+    @Test
+    void periodsStartedBeforeJoiningAreNotDue() {
+        member(1L, TODAY.minusDays(1), null);
+        member(2L, TODAY.minusYears(1), null);
+        paid(2L, 11L);
+
+        service.syncMemberStatuses(false);
+
+        verify(memberRepository).updateComplianceStatus(List.of(1L), true, "ACTIVE");
+        verify(memberRepository).updateComplianceStatus(List.of(2L), false, "EXPIRED");
+    }
+
+    @Test
+    void lastSubscriptionDateMovesTheBaseline() {
+        member(1L, TODAY.minusYears(1), TODAY.minusDays(30));
+        paid(1L, 11L);
+
+        MemberArrearsView arrears = service.getMemberArrears(1L);
+
+        assertEquals(1, arrears.duePeriodsCount());
+        assertTrue(arrears.unpaidPeriods().isEmpty());
+    }
+
+    @Test
+    void membersWithoutJoinDateAreLeftUntouched() {
+        member(1L, null, null);
+
+        ComplianceSyncReport report = service.syncMemberStatuses(false);
+
+        assertEquals(1, report.getSkippedCount());
+        assertEquals(0, report.getIrregularCount());
+        verify(memberRepository, never()).updateComplianceStatus(any(), anyBoolean(), anyString());
+    }
+
+    @Test
+    void manuallySetStatusIsNotOverwritten() {
+        member(1L, TODAY.minusYears(1), null);
+        when(memberRepository.findManualStatusIds()).thenReturn(List.of(1L));
+
+        ComplianceSyncReport report = service.syncMemberStatuses(false);
+
+        assertEquals(1, report.getManualCount());
+        verify(memberRepository, never()).updateComplianceStatus(any(), anyBoolean(), anyString());
+    }
+
+    @Test
+    void dryRunOnlyReports() {
+        member(1L, TODAY.minusYears(1), null);
+        when(memberRepository.countComplianceChanges(List.of(1L), false, "EXPIRED")).thenReturn(1L);
+
+        ComplianceSyncReport report = service.syncMemberStatuses(true);
+
+        assertTrue(report.isDryRun());
+        assertEquals(1, report.getMembersUpdated());
+        verify(memberRepository, never()).updateComplianceStatus(any(), anyBoolean(), anyString());
+    }
+
+    // =============================================
+    // MISE À JOUR DE LA MATRICE
+    // =============================================
+
+    @Test
+    void additionSetsBitsWithoutRebuild() {
+        member(1L, TODAY.minusYears(1), null);
+        member(2L, TODAY.minusYears(1), null);
+        assertEquals(List.of(1L, 2L), service.getPeriodCompliance(11L).defaulterIds());
+
+        service.onContributionsChanged(ContributionsChangedEvent.of(11L, List.of(1L), true));
+
+        PeriodComplianceView view = service.getPeriodCompliance(11L);
+        assertEquals(1, view.paidCount());
+        assertEquals(List.of(2L), view.defaulterIds());
+        // L'autre période n'est pas touchée
+        assertEquals(List.of(1L, 2L), service.getPeriodCompliance(10L).defaulterIds());
+        verify(contributionRepository, times(1)).streamPaidMemberPeriods();
+    }
+
+    @Test
+    void unknownMemberTriggersBackgroundRebuild() throws InterruptedException {
+        member(1L, TODAY.minusYears(1), null);
+        service.getPeriodCompliance(11L);
+
+        member(3L, TODAY.minusYears(1), null);
+        paid(3L, 11L);
+        service.onContributionsChanged(ContributionsChangedEvent.of(11L, List.of(3L), true));
+
+        await(() -> service.getPeriodCompliance(11L).membersCount() == 2);
+        assertEquals(List.of(1L), service.getPeriodCompliance(11L).defaulterIds());
+    }
+
+    @Test
+    void modificationTriggersBackgroundRebuild() throws InterruptedException {
+        member(1L, TODAY.minusYears(1), null);
+        paid(1L, 11L);
+        assertEquals(1, service.getPeriodCompliance(11L).paidCount());
+
+        payments.clear();
+        service.onContributionsChanged(ContributionsChangedEvent.of(11L, List.of(1L), false));
+
+        await(() -> service.getPeriodCompliance(11L).paidCount() == 0);
+        assertEquals(List.of(1L), service.getPeriodCompliance(11L).defaulterIds());
+    }
+
+    @Test
+    void eventBeforeFirstBuildIsIgnored() {
+        member(1L, TODAY.minusYears(1), null);
+        paid(1L, 11L);
+
+        service.onContributionsChanged(ContributionsChangedEvent.of(11L, List.of(1L), true));
+
+        verify(contributionRepository, never()).streamPaidMemberPeriods();
+        assertEquals(1, service.getPeriodCompliance(11L).paidCount());
+    }
+
+    @Test
+    void unknownIdsAreRejectedWithoutRebuild() {
+        member(1L, TODAY.minusYears(1), null);
+        service.getPeriodCompliance(11L);
+
+        RuntimeException period = assertThrows(RuntimeException.class, () -> service.getPeriodCompliance(99L));
+        RuntimeException member = assertThrows(RuntimeException.class, () -> service.getMemberArrears(99L));
+
+        assertEquals("Période de cotisation non trouvée avec ID: 99", period.getMessage());
+        assertEquals("Membre non trouvé avec ID: 99", member.getMessage());
+        verify(contributionRepository, times(1)).streamPaidMemberPeriods();
+    }
+
+    @Test
+    void periodCreatedSinceLastBuildTriggersRebuild() {
+        member(1L, TODAY.minusYears(1), null);
+        service.getPeriodCompliance(11L);
+
+        period(12L, TODAY.minusDays(1));
+        when(contributionPeriodRepository.existsById(12L)).thenReturn(true);
+
+        assertEquals(List.of(1L), service.getPeriodCompliance(12L).defaulterIds());
+        verify(contributionRepository, times(2)).streamPaidMemberPeriods();
+    }
+
+    @Test
+    void baselineChangeTriggersBackgroundRebuild() throws InterruptedException {
+        member(1L, TODAY.minusYears(1), null);
+        assertEquals(2, service.getMemberArrears(1L).duePeriodsCount());
+
+        // Souscription renouvelée : seule la période commencée depuis reste due
+        members.set(0, new Object[]{1L, TODAY.minusYears(1), TODAY.minusDays(30)});
+        service.onMemberBaselineChanged(new MemberBaselineChangedEvent(1L));
+
+        await(() -> service.getMemberArrears(1L).duePeriodsCount() == 1);
+    }
+
+    @Test
+    void defaultersExcludeMembersWhoJoinedAfterPeriodStart() {
+        member(1L, TODAY.minusYears(1), null);
+        member(2L, TODAY.minusDays(1), null);
+
+        PeriodComplianceView view = service.getPeriodCompliance(11L);
+
+        assertEquals(1, view.membersCount());
+        assertEquals(List.of(1L), view.defaulterIds());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Reconstruction en arrière-plan non terminée");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private void member(long id, LocalDate joinedAt, LocalDate lastSubscriptionDate) {
+        members.add(new Object[]{id, joinedAt, lastSubscriptionDate});
+    }
+
+    private void period(long id, LocalDate startDate) {
+        ContributionPeriod period = new ContributionPeriod();
+        period.setId(id);
+        period.setName("Période " + id);
+        period.setStartDate(Date.from(startDate.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        periods.add(period);
+    }
+
+    private void paid(long memberId, long periodId) {
+        payments.add(new Object[]{memberId, periodId});
+    }
+}
@@ -0,0 +1,116 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.dto.ContributionStatisticsResponse;
+import com.wbf.mutuelle.dto.ContributionStatisticsResponse.MonthTotal;
+import com.wbf.mutuelle.dto.ContributionStatisticsResponse.PeriodTotal;
+import com.wbf.mutuelle.dto.ContributionStatisticsResponse.TypeTotal;
+import com.wbf.mutuelle.entities.ContributionType;
+import com.wbf.mutuelle.repositories.ContributionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContributionStatisticsServiceTest {
+
+    private ContributionRepository contributionRepository;
+    private ContributionStatisticsService service;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        contributionRepository = mock(ContributionRepository.class);
+        when(contributionRepository.computeStatisticsByGroupingSets()).thenAnswer(invocation -> rows);
+        service = new ContributionStatisticsService(contributionRepository, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void groupingIdsMapToDimensions() {
+        // GROUPING(type, période, mois) : bit à 1 = colonne agrégée (type = 4, période = 2, mois = 1)
+        row(7, null, null, null, null, "15000", 3);
+        row(3, "INDIVIDUAL", null, null, null, "10000", 2);
+        row(3, "GROUP", null, null, null, "5000", 1);
+        row(5, null, 2L, "Février", null, "5000", 1);
+        row(5, null, 1L, "Janvier", null, "10000", 2);
+        row(6, null, null, null, "2025-02", "5000", 1);
+        row(6, null, null, null, "2025-01", "10000", 2);
+
+        ContributionStatisticsResponse statistics = service.getStatistics();
+
+        assertEquals(new BigDecimal("15000"), statistics.getTotalAmount());
+        assertEquals(3, statistics.getTotalCount());
+        assertEquals(new BigDecimal("10000"), statistics.getIndividualAmount());
+        assertEquals(new BigDecimal("5000"), statistics.getGroupAmount());
+        assertEquals(List.of(new TypeTotal(ContributionType.INDIVIDUAL, new BigDecimal("10000"), 2),
+                new TypeTotal(ContributionType.GROUP, new BigDecimal("5000"), 1)), statistics.getByType());
+        // Triés par période puis par mois
+        assertEquals(List.of(new PeriodTotal(1L, "Janvier", new BigDecimal("10000"), 2),
+                new PeriodTotal(2L, "Février", new BigDecimal("5000"), 1)), statistics.getByPeriod());
+        assertEquals(List.of(new MonthTotal("2025-01", new BigDecimal("10000"), 2),
+                new MonthTotal("2025-02", new BigDecimal("5000"), 1)), statistics.getByMonth());
+    }
+
+    @Test
+    void nullDimensionsAreKeptAsTheirOwnBucket() {
+        // Cotisations sans période ou sans date de paiement : valeur NULL non agrégée, rangée en dernier
+        row(5, null, null, null, null, "2000", 1);
+        row(5, null, 1L, "Janvier", null, "1000", 1);
+        row(6, null, null, null, null, "2000", 1);
+
+        ContributionStatisticsResponse statistics = service.getStatistics();
+
+        assertEquals(List.of(new PeriodTotal(1L, "Janvier", new BigDecimal("1000"), 1),
+                new PeriodTotal(null, null, new BigDecimal("2000"), 1)), statistics.getByPeriod());
+        assertEquals(List.of(new MonthTotal(null, new BigDecimal("2000"), 1)), statistics.getByMonth());
+    }
+
+    @Test
+    void emptyTableGivesZeroTotals() {
+        row(7, null, null, null, null, null, 0);
+
+        ContributionStatisticsResponse statistics = service.getStatistics();
+
+        assertEquals(BigDecimal.ZERO, statistics.getTotalAmount());
+        assertEquals(0, statistics.getTotalCount());
+        assertEquals(List.of(), statistics.getByType());
+    }
+
+    @Test
+    void unexpectedGroupingIdIsIgnored() {
+        row(1, "INDIVIDUAL", 1L, "Janvier", null, "1000", 1);
+
+        ContributionStatisticsResponse statistics = service.getStatistics();
+
+        assertEquals(List.of(), statistics.getByType());
+        assertEquals(List.of(), statistics.getByPeriod());
+        assertEquals(List.of(), statistics.getByMonth());
+    }
+
+    @Test
+    void resultIsCachedUntilInvalidated() {
+        row(7, null, null, null, null, "1000", 1);
+
+        service.getStatistics();
+        service.getStatistics();
+        service.invalidate();
+        service.getStatistics();
+
+        verify(contributionRepository, times(2)).computeStatisticsByGroupingSets();
+    }
+
+    private void row(int groupingId, String type, Long periodId, String periodName, String month,
+                     String amount, long count) {
+        rows.add(new Object[]{groupingId, type, periodId, periodName, month,
+                amount != null ? new BigDecimal(amount) : null, count});
+    }
+}
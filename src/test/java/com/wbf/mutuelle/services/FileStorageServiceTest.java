@@ -0,0 +1,47 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.entities.FileCategory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileStorageServiceTest {
+
+    @Test
+    void detectsAllowedFormatsFromContent() {
+        assertEquals("image/jpeg", detect(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+        assertEquals("image/png", detect(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}));
+        assertEquals("image/webp", detect("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1)));
+        assertEquals("application/pdf", detect("%PDF-1.7".getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    @Test
+    void rejectsActiveAndUnknownContent() {
+        assertNull(detect("<!DOCTYPE html><script>".getBytes(StandardCharsets.UTF_8)));
+        assertNull(detect("<svg xmlns=\"http://www.w3.org/2000/svg\">".getBytes(StandardCharsets.UTF_8)));
+        assertNull(detect(new byte[0]));
+        // En-tête tronqué
+        assertNull(detect(new byte[]{(byte) 0xFF, (byte) 0xD8}));
+    }
+
+    @Test
+    void pdfIsOnlyAllowedForPaymentProofs() {
+        assertTrue(FileCategory.PAYMENT_PROOF.allows("application/pdf"));
+        assertFalse(FileCategory.PROFILE_IMAGE.allows("application/pdf"));
+        assertTrue(FileCategory.PROFILE_IMAGE.allows("image/webp"));
+        assertFalse(FileCategory.PROFILE_IMAGE.allows("image/svg+xml"));
+        assertFalse(FileCategory.PAYMENT_PROOF.allows(null));
+    }
+
+    private static String detect(byte[] content) {
+        byte[] header = new byte[12];
+        int length = Math.min(content.length, header.length);
+        System.arraycopy(content, 0, header, 0, length);
+        return FileStorageService.detectContentType(header, length);
+    }
+}
@@ -0,0 +1,131 @@
+package com.wbf.mutuelle.services;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportFileReaderTest {
+
+    private record ReadRow(long rowNumber, List<String> cells) {
+    }
+
+    @Test
+    void splitsOnCommaByDefault() throws IOException {
+        List<ReadRow> rows = read("email,amount\njane@mutuelle.org,5000\n");
+
+        assertEquals(List.of("email", "amount"), rows.get(0).cells());
+        assertEquals(List.of("jane@mutuelle.org", "5000"), rows.get(1).cells());
+    }
+
+    @Test
+    void detectsSemicolonFromHeader() throws IOException {
+        List<ReadRow> rows = read("email;montant\njane@mutuelle.org;5000,50\n");
+
+        assertEquals(List.of("jane@mutuelle.org", "5000,50"), rows.get(1).cells());
+    }
+
+    @Test
+    void quotedFieldsKeepSeparatorsAndEscapedQuotes() throws IOException {
+        List<ReadRow> rows = read("name,mode\n\"Doe, Jane\",\"virement \"\"urgent\"\"\"\n");
+
+        assertEquals(List.of("Doe, Jane", "virement \"urgent\""), rows.get(1).cells());
+    }
+
+    @Test
+    void quotedNewlinesStayInOneRecord() throws IOException {
+        List<ReadRow> rows = read("name,reference\r\n\"Doe\",\"ligne 1\r\nligne 2\"\r\nSmith,REF2\r\n");
+
+        assertEquals(3, rows.size());
+        assertEquals(List.of("Doe", "ligne 1\r\nligne 2"), rows.get(1).cells());
+        assertEquals(2, rows.get(1).rowNumber());
+        // Numéro de ligne du fichier : l'enregistrement précédent en occupait deux
+        assertEquals(List.of("Smith", "REF2"), rows.get(2).cells());
+        assertEquals(4, rows.get(2).rowNumber());
+    }
+
+    @Test
+    void skipsByteOrderMarkAndBlankLines() throws IOException {
+        List<ReadRow> rows = read("\uFEFFemail\n\njane@mutuelle.org");
+
+        assertEquals(2, rows.size());
+        assertEquals(List.of("email"), rows.get(0).cells());
+        assertEquals(List.of("jane@mutuelle.org"), rows.get(1).cells());
+        assertEquals(3, rows.get(1).rowNumber());
+    }
+
+    @Test
+    void emptyCellsArePreserved() throws IOException {
+        List<ReadRow> rows = read("a,b,c\n,,x\n");
+
+        assertEquals(List.of("", "", "x"), rows.get(1).cells());
+    }
+
+    @Test
+    void emptyFileHasNoRow() throws IOException {
+        assertTrue(read("").isEmpty());
+    }
+
+    // =============================================
+    // XLSX
+    // =============================================
+
+    @Test
+    void xlsxNumbersIgnoreDisplayFormat(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("cotisations.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Row header = workbook.createSheet().createRow(0);
+            header.createCell(0).setCellValue("memberId");
+            header.createCell(1).setCellValue("amount");
+            header.createCell(2).setCellValue("fee");
+            header.createCell(3).setCellValue("paymentDate");
+
+            Row row = workbook.getSheetAt(0).createRow(1);
+            row.createCell(0).setCellValue(12);
+            numeric(row.createCell(1), 5000, format(workbook, "#,##0"));
+            numeric(row.createCell(2), 1234.5, format(workbook, "#,##0.00"));
+            Cell date = row.createCell(3);
+            date.setCellValue(LocalDate.of(2025, 3, 14));
+            date.setCellStyle(format(workbook, "dd/mm/yyyy"));
+            workbook.write(out);
+        }
+
+        List<ReadRow> rows = new ArrayList<>();
+        ImportFileReader.read(file, "cotisations.xlsx", (rowNumber, cells) -> rows.add(new ReadRow(rowNumber, cells)));
+
+        assertEquals(List.of("12", "5000", "1234.5", "2025-03-14"), rows.get(1).cells());
+    }
+
+    private static CellStyle format(XSSFWorkbook workbook, String pattern) {
+        CellStyle style = workbook.createCellStyle();
+        style.setDataFormat(workbook.createDataFormat().getFormat(pattern));
+        return style;
+    }
+
+    private static void numeric(Cell cell, double value, CellStyle style) {
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+    }
+
+    private static List<ReadRow> read(String content) throws IOException {
+        List<ReadRow> rows = new ArrayList<>();
+        ImportFileReader.readCsv(new BufferedReader(new StringReader(content)),
+                (rowNumber, cells) -> rows.add(new ReadRow(rowNumber, cells)));
+        return rows;
+    }
+}
@@ -0,0 +1,117 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.configuration.AuthenticatedPrincipalCache;
+import com.wbf.mutuelle.configuration.CacheConfig;
+import com.wbf.mutuelle.dto.MemberProfileResponse;
+import com.wbf.mutuelle.entities.Member;
+import com.wbf.mutuelle.entities.Role;
+import com.wbf.mutuelle.repositories.LoanRequestRepository;
+import com.wbf.mutuelle.repositories.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MemberServiceTest {
+
+    private MemberRepository memberRepository;
+    private AuthenticatedPrincipalCache principalCache;
+    private TokenRevocationService tokenRevocationService;
+    private ApplicationEventPublisher eventPublisher;
+    private ConcurrentMapCacheManager cacheManager;
+    private MemberService memberService;
+    private Member managed;
+
+    @BeforeEach
+    void setUp() {
+        memberRepository = mock(MemberRepository.class);
+        principalCache = mock(AuthenticatedPrincipalCache.class);
+        tokenRevocationService = mock(TokenRevocationService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        cacheManager = new ConcurrentMapCacheManager();
+        memberService = new MemberService(memberRepository, mock(LoanRequestRepository.class), principalCache,
+                tokenRevocationService, eventPublisher, cacheManager);
+
+        managed = new Member(1L, "Doe", "Jane", "jane@mutuelle.org", "hash", "NPI1", "0100", Role.TREASURER);
+        when(memberRepository.findById(1L)).thenReturn(Optional.of(managed));
+        when(memberRepository.save(any(Member.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void roleChangeRevokesExistingTokens() {
+        memberService.updateMember(1L, details("jane@mutuelle.org", Role.MEMBER));
+
+        verify(tokenRevocationService).revokeTokensOf("jane@mutuelle.org");
+    }
+
+    @Test
+    void emailChangeRevokesTokensOfPreviousEmail() {
+        memberService.updateMember(1L, details("jane.doe@mutuelle.org", Role.TREASURER));
+
+        verify(tokenRevocationService).revokeTokensOf("jane@mutuelle.org");
+    }
+
+    @Test
+    void unchangedIdentityKeepsTokens() {
+        memberService.updateMember(1L, details("jane@mutuelle.org", Role.TREASURER));
+
+        verify(tokenRevocationService, never()).revokeTokensOf(anyString());
+    }
+
+    @Test
+    void emailChangeEvictsPrincipalCachedUnderPreviousEmail() {
+        memberService.updateMember(1L, details("jane.doe@mutuelle.org", Role.TREASURER));
+
+        verify(principalCache).evictByEmail("jane@mutuelle.org");
+        verify(principalCache).evictByEmail("jane.doe@mutuelle.org");
+    }
+
+    @Test
+    void emailChangeEvictsProfileCachedUnderPreviousEmail() {
+        Cache profiles = cacheManager.getCache(CacheConfig.MEMBER_PROFILES);
+        profiles.put("jane@mutuelle.org", MemberProfileResponse.from(managed));
+
+        memberService.updateMember(1L, details("Jane.Doe@mutuelle.org", Role.TREASURER));
+
+        assertNull(profiles.get("jane@mutuelle.org"));
+    }
+
+    @Test
+    void managedInstanceIsRejected() {
+        managed.setRole(Role.MEMBER);
+
+        assertThrows(IllegalArgumentException.class, () -> memberService.updateMember(1L, managed));
+        verify(tokenRevocationService, never()).revokeTokensOf(anyString());
+    }
+
+    @Test
+    void subscriptionDateChangeMarksComplianceStale() {
+        LocalDate renewedOn = LocalDate.of(2025, 3, 1);
+
+        memberService.updateSubscriptionStatus(1L, true, renewedOn, true);
+        verify(eventPublisher).publishEvent(new MemberBaselineChangedEvent(1L));
+
+        // Même date : les périodes dues ne changent pas
+        reset(eventPublisher);
+        memberService.updateSubscriptionStatus(1L, false, renewedOn, false);
+        verify(eventPublisher, never()).publishEvent(any(MemberBaselineChangedEvent.class));
+    }
+
+    private static Member details(String email, Role role) {
+        return new Member(null, "Doe", "Jane", email, "hash", "NPI1", "0100", role);
+    }
+}
@@ -0,0 +1,57 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.repositories.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class NotificationServiceTest {
+
+    private NotificationRepository notificationRepository;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+    }
+
+    @Test
+    void fullTextModeUsesTsvectorSearch() {
+        NotificationService service = new NotificationService(notificationRepository, "fulltext");
+
+        service.searchNotifications("  cotisation en retard ", "jane@mutuelle.org", null, 0, 20);
+
+        verify(notificationRepository).searchFullText("cotisation en retard", "jane@mutuelle.org", null,
+                PageRequest.of(0, 20));
+        verify(notificationRepository, never()).searchLike(anyString(), any(), any(), any());
+    }
+
+    @Test
+    void localProfileFallsBackToEscapedLikeSearch() throws IOException {
+        String mode = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-local.properties"))
+                .getProperty("notification.search.mode");
+        NotificationService service = new NotificationService(notificationRepository, mode);
+
+        service.searchNotifications("Taux_100%", null, "MEMBER", 1, 20);
+
+        verify(notificationRepository).searchLike("%taux\\_100\\%%", null, "MEMBER", PageRequest.of(1, 20));
+        verify(notificationRepository, never()).searchFullText(anyString(), any(), any(), any());
+    }
+
+    @Test
+    void blankKeywordIsRejected() {
+        NotificationService service = new NotificationService(notificationRepository, "fulltext");
+
+        assertThrows(IllegalArgumentException.class, () -> service.searchNotifications(" ", null, null, 0, 20));
+    }
+}
@@ -0,0 +1,74 @@
+package com.wbf.mutuelle.services;
+
+import com.wbf.mutuelle.entities.TokenRevocation;
+import com.wbf.mutuelle.repositories.TokenRevocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private static final long LIFETIME = 3_600_000L;
+
+    private TokenRevocationRepository repository;
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TokenRevocationRepository.class);
+        when(repository.findByRevokedAtAfter(any())).thenReturn(List.of());
+        service = new TokenRevocationService(repository, LIFETIME, true);
+        service.loadPersistedRevocations();
+    }
+
+    @Test
+    void tokenIssuedInTheSecondOfRevocationIsRejected() {
+        Instant issuedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        service.revokeTokensOf("Jane@Mutuelle.org");
+
+        // Date d'émission JWT tronquée à la seconde, égale ou antérieure à la révocation
+        assertTrue(service.isRevoked("jane@mutuelle.org", issuedAt));
+    }
+
+    @Test
+    void tokenIssuedAfterRevocationIsAccepted() {
+        service.revokeTokensOf("jane@mutuelle.org");
+
+        assertTrue(service.isRevoked("jane@mutuelle.org", Instant.now().minusSeconds(60)));
+        assertFalse(service.isRevoked("jane@mutuelle.org", Instant.now().plusSeconds(2)));
+        assertFalse(service.isRevoked("john@mutuelle.org", Instant.now().minusSeconds(60)));
+    }
+
+    @Test
+    void refreshAppliesRevocationsMadeByAnotherInstance() {
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        assertFalse(service.isRevoked("jane@mutuelle.org", issuedAt));
+
+        when(repository.findByRevokedAtAfter(any()))
+                .thenReturn(List.of(new TokenRevocation("jane@mutuelle.org", Instant.now())));
+        service.refreshPersistedRevocations();
+
+        assertTrue(service.isRevoked("jane@mutuelle.org", issuedAt));
+    }
+
+    @Test
+    void refreshKeepsMoreRecentLocalRevocation() {
+        service.revokeTokensOf("jane@mutuelle.org");
+        when(repository.findByRevokedAtAfter(any()))
+                .thenReturn(List.of(new TokenRevocation("jane@mutuelle.org", Instant.now().minusSeconds(600))));
+
+        service.refreshPersistedRevocations();
+
+        assertTrue(service.isRevoked("jane@mutuelle.org", Instant.now().minusSeconds(60)));
+    }
+}
@@ -0,0 +1,24 @@
+-- Jeu de données du benchmark des requêtes de cotisations par membre (PostgreSQL).
+-- 20 000 membres, 200 000 cotisations individuelles, 20 000 cotisations groupées de 5 membres.
+-- Identifiants à partir de 900 000 000 pour ne pas croiser les données existantes ;
+-- le benchmark exécute ce script dans une transaction annulée à la fin.
+
+INSERT INTO member (id, name, first_name, email)
+SELECT 900000000 + g, 'Bench', 'Membre ' || g, 'bench' || g || '@bench.local'
+FROM generate_series(1, 20000) g;
+
+INSERT INTO contribution (id, contribution_type, payment_date, amount, member_id)
+SELECT 900000000 + g, 'INDIVIDUAL', DATE '2020-01-01' + (g % 1500), 5000, 900000001 + (g % 20000)
+FROM generate_series(1, 200000) g;
+
+INSERT INTO contribution (id, contribution_type, payment_date, amount)
+SELECT 900200000 + g, 'GROUP', DATE '2020-01-01' + (g % 1500), 25000
+FROM generate_series(1, 20000) g;
+
+INSERT INTO contribution_members (contribution_id, member_id)
+SELECT 900200000 + g, 900000001 + ((g * 5 + k) % 20000)
+FROM generate_series(1, 20000) g, generate_series(0, 4) k;
+
+ANALYZE member;
+ANALYZE contribution;
+ANALYZE contribution_members;